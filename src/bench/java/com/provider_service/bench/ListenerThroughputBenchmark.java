@@ -0,0 +1,123 @@
+package com.provider_service.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.amqp.RabbitAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.provider_service.config.RabbitConfig;
+import com.provider_service.dto.PatientStatusUpdateMessage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Consumer throughput of the batch listener factory (patient status events)
+ * for each combination of prefetch, consumer batch size and concurrency. Every
+ * run starts RabbitConfig with the application's properties, overriding only
+ * those three, pre-fills a temporary queue with status events, then times how
+ * long a container from batchRabbitListenerContainerFactory needs to drain and
+ * convert them. Receive timeout, max wait, max concurrency and the scaling
+ * triggers are the application's own, so batchSize=1 is the unbatched baseline.
+ *
+ * Needs a RabbitMQ broker (e.g. docker run -p 5672:5672 rabbitmq:3):
+ *
+ * <pre>
+ * ./mvnw -P benchmarks test-compile exec:java \
+ *     -Dbench.main=com.provider_service.bench.ListenerThroughputBenchmark \
+ *     -Dbench.messages=20000 -Dbench.prefetch=1,10,50,250 -Dbench.batchSize=1,10,50 -Dbench.concurrency=1,4
+ * </pre>
+ */
+public class ListenerThroughputBenchmark {
+
+    private static final String HOST = System.getProperty("bench.rabbitHost", "localhost");
+    private static final int MESSAGES = Integer.getInteger("bench.messages", 20_000);
+    private static final int[] PREFETCH = ints(System.getProperty("bench.prefetch", "1,10,50,250"));
+    private static final int[] BATCH_SIZE = ints(System.getProperty("bench.batchSize", "1,10,50"));
+    private static final int[] CONCURRENCY = ints(System.getProperty("bench.concurrency", "1,4"));
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("messages=%d%n", MESSAGES);
+        System.out.printf("%8s %9s %11s %12s%n", "prefetch", "batchSize", "concurrency", "msgs/s");
+        for (int prefetch : PREFETCH) {
+            for (int batchSize : BATCH_SIZE) {
+                if (batchSize > prefetch) {
+                    continue;
+                }
+                for (int concurrency : CONCURRENCY) {
+                    double rate = run(prefetch, batchSize, concurrency);
+                    System.out.printf("%8d %9d %11d %12.0f%n", prefetch, batchSize, concurrency, rate);
+                }
+            }
+        }
+    }
+
+    private static double run(int prefetch, int batchSize, int concurrency) throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                RabbitAutoConfiguration.class, RabbitConfig.class, SimpleMeterRegistry.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.rabbitmq.host=" + HOST,
+                        "spring.rabbitmq.username=" + System.getProperty("bench.rabbitUser", "guest"),
+                        "spring.rabbitmq.password=" + System.getProperty("bench.rabbitPassword", "guest"),
+                        "patient.listener.batch.prefetch=" + prefetch,
+                        "patient.listener.batch.size=" + batchSize,
+                        "patient.listener.batch.concurrency=" + concurrency)
+                .run()) {
+            SimpleRabbitListenerContainerFactory factory = context.getBean(
+                    RabbitConfig.BATCH_LISTENER_CONTAINER_FACTORY, SimpleRabbitListenerContainerFactory.class);
+            MessageConverter converter = context.getBean(MessageConverter.class);
+            RabbitTemplate template = context.getBean(RabbitTemplate.class);
+            RabbitAdmin admin = context.getBean(RabbitAdmin.class);
+
+            Queue queue = admin.declareQueue();
+            template.invoke(operations -> {
+                for (int i = 0; i < MESSAGES; i++) {
+                    operations.convertAndSend("", queue.getName(),
+                            new PatientStatusUpdateMessage("patient-" + i, "provider-bench", "ACTIVE", "PENDING"));
+                }
+                return null;
+            });
+
+            CountDownLatch drained = new CountDownLatch(MESSAGES);
+            SimpleMessageListenerContainer container = factory.createListenerContainer();
+            container.setQueueNames(queue.getName());
+            container.setMessageListener((BatchMessageListener) messages -> {
+                for (Message message : messages) {
+                    converter.fromMessage(message);
+                    drained.countDown();
+                }
+            });
+
+            long start = System.nanoTime();
+            container.start();
+            try {
+                if (!drained.await(5, TimeUnit.MINUTES)) {
+                    throw new IllegalStateException("Queue not drained, " + drained.getCount() + " messages left");
+                }
+                return MESSAGES / ((System.nanoTime() - start) / 1e9);
+            } finally {
+                container.stop();
+                admin.deleteQueue(queue.getName());
+            }
+        }
+    }
+
+    private static int[] ints(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+}
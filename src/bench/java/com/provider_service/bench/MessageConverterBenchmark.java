@@ -0,0 +1,108 @@
+package com.provider_service.bench;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJackson2MessageConverter;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.core.ParameterizedTypeReference;
+
+import com.provider_service.config.SmileMessageConverter;
+import com.provider_service.dto.PatientDTO;
+import com.provider_service.dto.PatientStatusUpdateMessage;
+
+/**
+ * Encoding and decoding cost of the broker payloads for each wire format
+ * supported by RabbitConfig: patient sync responses by panel size, and a
+ * single status update. The encoded sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageConverterBenchmark {
+
+    private static final ParameterizedTypeReference<List<PatientDTO>> PATIENT_LIST =
+            new ParameterizedTypeReference<>() { };
+
+    @Param({ "10", "100", "1000" })
+    private int panelSize;
+
+    @Param({ "json", "smile" })
+    private String format;
+
+    private AbstractJackson2MessageConverter converter;
+    private List<PatientDTO> patients;
+    private Message patientsMessage;
+    private PatientStatusUpdateMessage statusUpdate;
+    private Message statusUpdateMessage;
+
+    @Setup
+    public void setUp() {
+        converter = "smile".equals(format) ? new SmileMessageConverter() : new Jackson2JsonMessageConverter();
+        patients = new ArrayList<>(panelSize);
+        for (int i = 0; i < panelSize; i++) {
+            patients.add(PatientDTO.builder()
+                    .id("patient-" + i)
+                    .email("patient" + i + "@example.com")
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .phone("+1-555-0100")
+                    .dateOfBirth(LocalDate.of(1980, 1, 1).plusDays(i))
+                    .gender(i % 2 == 0 ? "F" : "M")
+                    .address(i + " Main Street")
+                    .city("Springfield")
+                    .state("IL")
+                    .zipCode("62701")
+                    .country("US")
+                    .accountStatus("ACTIVE")
+                    .createdAt(LocalDateTime.of(2024, 1, 1, 9, 0))
+                    .updatedAt(LocalDateTime.of(2024, 6, 1, 9, 0))
+                    .build());
+        }
+        patientsMessage = converter.toMessage(patients, new MessageProperties());
+        statusUpdate = new PatientStatusUpdateMessage("patient-1", "provider@example.com", "ACTIVE", "PENDING");
+        statusUpdate.setReason("Approved by provider");
+        statusUpdateMessage = converter.toMessage(statusUpdate, new MessageProperties());
+        System.out.printf("%n%s: %d patients = %d bytes, status update = %d bytes%n", format, panelSize,
+                patientsMessage.getBody().length, statusUpdateMessage.getBody().length);
+    }
+
+    @Benchmark
+    public Message encodePatients() {
+        return converter.toMessage(patients, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object decodePatients() {
+        return converter.fromMessage(patientsMessage, PATIENT_LIST);
+    }
+
+    @Benchmark
+    public Message encodeStatusUpdate() {
+        return converter.toMessage(statusUpdate, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object decodeStatusUpdate() {
+        return converter.fromMessage(statusUpdateMessage);
+    }
+}
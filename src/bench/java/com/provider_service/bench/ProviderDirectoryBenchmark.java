@@ -0,0 +1,253 @@
+package com.provider_service.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.bson.Document;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.provider_service.models.Provider;
+import com.provider_service.services.ProviderDirectoryService;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+
+/**
+ * Directory search latency as the providers collection grows. The collection
+ * is filled step by step to each target size in an embedded mongod with the
+ * indexes declared on Provider; after each step every query shape (specialty
+ * + state, sub-specialty, clinic, first page and a keyset-paged deep page) is
+ * timed. With the indexes in place the numbers should stay flat across sizes.
+ *
+ * Before timing, every combination of the four filters (and a keyset-paged
+ * query) is explained; the benchmark fails if any winning plan scans the
+ * collection or sorts in memory, i.e. if a filter combination has no index
+ * that serves both the match and the fullName/_id order.
+ *
+ * <pre>
+ * ./mvnw -P benchmarks test-compile exec:java \
+ *     -Dbench.main=com.provider_service.bench.ProviderDirectoryBenchmark \
+ *     -Dbench.sizes=10000,100000,1000000 -Dbench.queries=500
+ * </pre>
+ */
+public class ProviderDirectoryBenchmark {
+
+    private static final int[] SIZES = Arrays.stream(System.getProperty("bench.sizes", "10000,100000,1000000").split(","))
+            .map(String::trim).mapToInt(Integer::parseInt).toArray();
+    private static final int QUERIES = Integer.getInteger("bench.queries", 500);
+    private static final int PAGE_SIZE = Integer.getInteger("bench.pageSize", 20);
+    private static final int INSERT_BATCH = 10_000;
+
+    private static final String[] SPECIALTIES = { "Cardiology", "Dermatology", "Neurology", "Oncology", "Pediatrics",
+            "Psychiatry", "Radiology", "Orthopedics", "Endocrinology", "Gastroenterology" };
+    private static final String[] STATES = { "CA", "NY", "TX", "FL", "IL", "PA", "OH", "GA", "NC", "MI",
+            "NJ", "VA", "WA", "AZ", "MA", "TN", "IN", "MO", "MD", "WI" };
+
+    public static void main(String[] args) {
+        ((Logger) LoggerFactory.getLogger("org.mongodb.driver")).setLevel(Level.WARN);
+        ((Logger) LoggerFactory.getLogger("com.provider_service")).setLevel(Level.WARN);
+
+        try (TransitionWalker.ReachedState<RunningMongodProcess> mongod = Mongod.instance().start(Version.Main.V7_0);
+             MongoClient client = MongoClients.create("mongodb://" + mongod.current().getServerAddress())) {
+            CapturingMongoTemplate mongoTemplate = new CapturingMongoTemplate(client, "directory-bench");
+            createIndexes(mongoTemplate);
+
+            ProviderDirectoryService directory = new ProviderDirectoryService(mongoTemplate);
+            ReflectionTestUtils.setField(directory, "maxPageSize", 100);
+
+            System.out.printf("%10s %-22s %9s %9s %9s%n", "providers", "query", "p50(ms)", "p99(ms)", "max(ms)");
+            int inserted = 0;
+            for (int size : SIZES) {
+                inserted = fill(mongoTemplate, inserted, size);
+                checkPlans(directory, mongoTemplate, size);
+                measure(directory, size);
+            }
+        }
+    }
+
+    private static void createIndexes(MongoTemplate mongoTemplate) {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        IndexOperations indexOps = mongoTemplate.indexOps(Provider.class);
+        IndexResolver.create(mappingContext).resolveIndexFor(Provider.class).forEach(indexOps::ensureIndex);
+    }
+
+    private static int fill(MongoTemplate mongoTemplate, int from, int to) {
+        Random random = new Random(from);
+        for (int start = from; start < to; start += INSERT_BATCH) {
+            List<Provider> batch = new ArrayList<>(INSERT_BATCH);
+            for (int i = start; i < Math.min(start + INSERT_BATCH, to); i++) {
+                batch.add(provider(i, random));
+            }
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Provider.class).insert(batch).execute();
+        }
+        return to;
+    }
+
+    private static Provider provider(int i, Random random) {
+        Provider provider = new Provider("provider" + i + "@example.com", "hash");
+        String specialty = SPECIALTIES[random.nextInt(SPECIALTIES.length)];
+        provider.setFullName("Provider " + Integer.toString(random.nextInt(Integer.MAX_VALUE), 36) + " " + i);
+        provider.setProfessionalTitle("MD");
+        provider.setSpecialty(specialty);
+        provider.setSubSpecialties(List.of(specialty + " " + random.nextInt(5)));
+        provider.setStateLicenses(List.of(STATES[random.nextInt(STATES.length)], STATES[random.nextInt(STATES.length)]));
+        provider.setPrimaryClinicName("Clinic " + random.nextInt(5_000));
+        provider.setClinicAddress(i + " Main Street");
+        provider.setContactNumber("+1-555-0100");
+        return provider;
+    }
+
+    // Explains the query the service actually sends for each filter combination
+    private static void checkPlans(ProviderDirectoryService directory, CapturingMongoTemplate mongoTemplate, int size) {
+        List<String> problems = new ArrayList<>();
+        for (int filters = 0; filters < 16; filters++) {
+            String specialty = (filters & 1) != 0 ? SPECIALTIES[0] : null;
+            String subSpecialty = (filters & 2) != 0 ? SPECIALTIES[0] + " 0" : null;
+            String state = (filters & 4) != 0 ? STATES[0] : null;
+            String clinic = (filters & 8) != 0 ? "Clinic 0" : null;
+            directory.search(specialty, subSpecialty, state, clinic, 0, PAGE_SIZE, null);
+            checkPlan(mongoTemplate, describe(specialty, subSpecialty, state, clinic), filters != 0, problems);
+        }
+        Slice<Provider> first = directory.search(SPECIALTIES[0], null, null, null, 0, PAGE_SIZE, null);
+        if (first.hasContent()) {
+            String token = ProviderDirectoryService.pageToken(first.getContent().get(first.getNumberOfElements() - 1));
+            directory.search(SPECIALTIES[0], null, null, null, 1, PAGE_SIZE, token);
+            checkPlan(mongoTemplate, "specialty, page token", true, problems);
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Directory queries without a usable index at " + size + " providers: " + problems);
+        }
+    }
+
+    private static void checkPlan(CapturingMongoTemplate mongoTemplate, String name, boolean filtered, List<String> problems) {
+        Query query = mongoTemplate.lastQuery;
+        Document command = new Document("find", mongoTemplate.getCollectionName(Provider.class))
+                .append("filter", query.getQueryObject())
+                .append("sort", query.getSortObject())
+                .append("projection", query.getFieldsObject())
+                .append("limit", query.getLimit());
+        if (query.getSkip() > 0) {
+            command.append("skip", query.getSkip());
+        }
+        Document explain = mongoTemplate.getDb().runCommand(
+                new Document("explain", command).append("verbosity", "queryPlanner"));
+        Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+
+        Set<String> stages = new LinkedHashSet<>();
+        Set<String> indexes = new LinkedHashSet<>();
+        collectPlan(winningPlan, stages, indexes);
+        System.out.printf("plan %-40s stages=%s indexes=%s%n", name, stages, indexes);
+        // walking the whole name index and filtering every document is a scan too
+        boolean nameIndexOnly = filtered && indexes.equals(Set.of("directory_name"));
+        if (stages.contains("COLLSCAN") || stages.contains("SORT") || nameIndexOnly) {
+            problems.add(name + " " + stages + " " + indexes);
+        }
+    }
+
+    // Plan trees nest stages under inputStage/inputStages (queryPlan for the SBE engine)
+    private static void collectPlan(Object node, Set<String> stages, Set<String> indexes) {
+        if (node instanceof Document document) {
+            if (document.get("stage") instanceof String stage) {
+                stages.add(stage);
+            }
+            if (document.get("indexName") instanceof String index) {
+                indexes.add(index);
+            }
+            document.values().forEach(value -> collectPlan(value, stages, indexes));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectPlan(value, stages, indexes));
+        }
+    }
+
+    private static String describe(String specialty, String subSpecialty, String state, String clinic) {
+        List<String> filters = new ArrayList<>();
+        if (specialty != null) {
+            filters.add("specialty");
+        }
+        if (subSpecialty != null) {
+            filters.add("subSpecialty");
+        }
+        if (state != null) {
+            filters.add("state");
+        }
+        if (clinic != null) {
+            filters.add("clinic");
+        }
+        return filters.isEmpty() ? "all" : String.join("+", filters);
+    }
+
+    private static void measure(ProviderDirectoryService directory, int size) {
+        Random random = new Random(size);
+        time(size, "specialty+state", () -> directory.search(SPECIALTIES[random.nextInt(SPECIALTIES.length)], null,
+                STATES[random.nextInt(STATES.length)], null, 0, PAGE_SIZE, null));
+        time(size, "subSpecialty", () -> directory.search(null,
+                SPECIALTIES[random.nextInt(SPECIALTIES.length)] + " " + random.nextInt(5), null, null, 0, PAGE_SIZE, null));
+        time(size, "clinic", () -> directory.search(null, null, null, "Clinic " + random.nextInt(5_000), 0, PAGE_SIZE, null));
+        time(size, "all, first page", () -> directory.search(null, null, null, null, 0, PAGE_SIZE, null));
+
+        // page 10 reached through tokens, only the last hop is timed
+        String specialty = SPECIALTIES[0];
+        String token = null;
+        for (int page = 0; page < 10; page++) {
+            Slice<Provider> slice = directory.search(specialty, null, null, null, page, PAGE_SIZE, token);
+            if (!slice.hasNext()) {
+                break;
+            }
+            token = ProviderDirectoryService.pageToken(slice.getContent().get(slice.getNumberOfElements() - 1));
+        }
+        String deepPageToken = token;
+        time(size, "specialty, page 10", () -> directory.search(specialty, null, null, null, 10, PAGE_SIZE, deepPageToken));
+    }
+
+    private static void time(int size, String name, Runnable query) {
+        for (int i = 0; i < QUERIES / 10; i++) {
+            query.run();
+        }
+        long[] latencies = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long start = System.nanoTime();
+            query.run();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%10d %-22s %9.2f %9.2f %9.2f%n", size, name,
+                latencies[QUERIES / 2] / 1e6, latencies[(int) (QUERIES * 0.99)] / 1e6, latencies[QUERIES - 1] / 1e6);
+    }
+
+    // Remembers the last find so its plan can be explained exactly as the service built it
+    private static final class CapturingMongoTemplate extends MongoTemplate {
+
+        private Query lastQuery;
+
+        CapturingMongoTemplate(MongoClient client, String databaseName) {
+            super(client, databaseName);
+        }
+
+        @Override
+        public <T> List<T> find(Query query, Class<T> entityClass) {
+            lastQuery = query;
+            return super.find(query, entityClass);
+        }
+    }
+}
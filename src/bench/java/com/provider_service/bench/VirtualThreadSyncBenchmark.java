@@ -0,0 +1,193 @@
+package com.provider_service.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+
+import com.provider_service.ProviderServiceApplication;
+import com.provider_service.load.FakePatientService;
+import com.provider_service.models.Provider;
+import com.provider_service.services.JwtService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Compares thread-per-request (a Tomcat-sized platform pool) with virtual
+ * threads for patient-list requests that each need a patient-service round
+ * trip. The whole application runs against RabbitMQ and Mongo containers;
+ * FakePatientService answers every sync after a fixed latency, and requests go
+ * through HTTP, security, the controller, the broker and the reply listeners.
+ * The read model TTL is negative so no request is served from the cache.
+ *
+ * Client concurrency is ramped through bench.concurrency levels. For each level
+ * the service's patient.sync.outstanding gauge is sampled, so the peak number
+ * of syncs actually in flight inside the service is reported next to p99; the
+ * client level only bounds it. Each mode's capacity is the highest level whose
+ * p99 stays under bench.maxP99Ms without timeouts or errors.
+ *
+ * <pre>
+ * ./mvnw -P benchmarks,virtual-threads test-compile exec:java \
+ *     -Dbench.main=com.provider_service.bench.VirtualThreadSyncBenchmark \
+ *     -Dbench.requests=10000 -Dbench.concurrency=100,200,500,1000,2000 -Dbench.maxP99Ms=250 \
+ *     -Dbench.replyLatencyMs=20 -Dbench.platformThreads=200
+ * </pre>
+ */
+public class VirtualThreadSyncBenchmark {
+
+    private static final int REQUESTS = Integer.getInteger("bench.requests", 10_000);
+    private static final int[] CONCURRENCY = Arrays.stream(System.getProperty("bench.concurrency", "100,200,500,1000,2000").split(","))
+            .map(String::trim).mapToInt(Integer::parseInt).toArray();
+    private static final double MAX_P99_MS = Double.parseDouble(System.getProperty("bench.maxP99Ms", "250"));
+    private static final int REPLY_LATENCY_MS = Integer.getInteger("bench.replyLatencyMs", 20);
+    private static final int PLATFORM_THREADS = Integer.getInteger("bench.platformThreads", 200);
+    private static final Duration CLIENT_TIMEOUT = Duration.ofSeconds(30);
+
+    public static void main(String[] args) throws Exception {
+        try (MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+             RabbitMQContainer rabbit = new RabbitMQContainer("rabbitmq:3.13-management")) {
+            mongo.start();
+            rabbit.start();
+
+            run("platform(" + PLATFORM_THREADS + ")", false, mongo, rabbit);
+            if (Runtime.version().feature() < 21) {
+                System.out.println("virtual: skipped, requires Java 21 (-P virtual-threads)");
+                return;
+            }
+            run("virtual", true, mongo, rabbit);
+        }
+    }
+
+    private static void run(String mode, boolean virtualThreads, MongoDBContainer mongo, RabbitMQContainer rabbit)
+            throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("management.server.port", 0);
+        properties.put("spring.threads.virtual.enabled", virtualThreads);
+        properties.put("server.tomcat.threads.max", PLATFORM_THREADS);
+        properties.put("spring.data.mongodb.uri", mongo.getReplicaSetUrl("vt-bench"));
+        properties.put("spring.rabbitmq.host", rabbit.getHost());
+        properties.put("spring.rabbitmq.port", rabbit.getAmqpPort());
+        properties.put("spring.rabbitmq.username", rabbit.getAdminUsername());
+        properties.put("spring.rabbitmq.password", rabbit.getAdminPassword());
+        // every read misses, so each call is a broker round trip
+        properties.put("patient.cache.ttl-ms", -1);
+        // a breaker that never opens and no admission cap, as the benchmark measures queueing only
+        properties.put("patient.breaker.minimum-calls", Integer.MAX_VALUE);
+        properties.put("patient.sync.max-outstanding", Integer.MAX_VALUE);
+        properties.put("provider.rate-limit.requests-per-second", 1_000_000);
+        // tokens carry everything the filter needs, no provider documents are required
+        properties.put("jwt.stateless-auth", true);
+        properties.put("fake-patient-service.reply-latency-ms", REPLY_LATENCY_MS);
+        properties.put("fake-patient-service.panel-size", 20);
+        // per-request INFO logging would dominate the measurement
+        properties.put("logging.level.com.provider_service", "WARN");
+        properties.put("logging.level.org.springframework.amqp", "WARN");
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                ProviderServiceApplication.class, FakePatientService.class)
+                .properties(properties)
+                .run()) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            List<String> tokens = tokens(context.getBean(JwtService.class));
+            Gauge outstanding = context.getBean(MeterRegistry.class).get("patient.sync.outstanding").gauge();
+
+            int sustained = 0;
+            for (int level : CONCURRENCY) {
+                Result result = measure(mode, level, port, tokens, outstanding);
+                if (result.timeouts() > 0 || result.errors() > 0 || result.p99Millis() > MAX_P99_MS) {
+                    break;
+                }
+                sustained = level;
+            }
+            System.out.printf("%-14s sustains concurrency=%d (p99 <= %.0fms, no timeouts or errors)%n",
+                    mode, sustained, MAX_P99_MS);
+        }
+    }
+
+    private static Result measure(String mode, int level, int port, List<String> tokens, Gauge outstanding) {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(CLIENT_TIMEOUT).build();
+        Semaphore concurrency = new Semaphore(level);
+        AtomicInteger timeouts = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        long[] latencies = new long[REQUESTS];
+        List<CompletableFuture<?>> calls = new ArrayList<>(REQUESTS);
+
+        // the service's own count of syncs waiting on patient-service, sampled every millisecond
+        AtomicInteger peakOutstanding = new AtomicInteger();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peakOutstanding.accumulateAndGet((int) outstanding.value(), Math::max),
+                0, 1, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            int request = i;
+            concurrency.acquireUninterruptibly();
+            HttpRequest get = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/providers/patients?status=ALL"))
+                    .header("Authorization", "Bearer " + tokens.get(request))
+                    .timeout(CLIENT_TIMEOUT)
+                    .GET()
+                    .build();
+            long submitted = System.nanoTime();
+            calls.add(http.sendAsync(get, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies[request] = System.nanoTime() - submitted;
+                        if (error != null || response.statusCode() == 504) {
+                            timeouts.incrementAndGet();
+                        } else if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        concurrency.release();
+                    }));
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        long elapsed = System.nanoTime() - start;
+        sampler.shutdownNow();
+
+        Arrays.sort(latencies);
+        double p99 = percentile(latencies, 0.99);
+        System.out.printf("%-14s requests=%d concurrency=%d throughput=%.0f/s p50=%.1fms p99=%.1fms max=%.1fms "
+                        + "peakOutstandingSyncs=%d errors=%d timeouts=%d%n",
+                mode, REQUESTS, level, REQUESTS / (elapsed / 1e9),
+                percentile(latencies, 0.50), p99, latencies[REQUESTS - 1] / 1e6,
+                peakOutstanding.get(), errors.get(), timeouts.get());
+        return new Result(p99, timeouts.get(), errors.get());
+    }
+
+    // One provider per request so every call is its own panel sync, none is coalesced
+    private static List<String> tokens(JwtService jwtService) {
+        List<String> tokens = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            Provider provider = new Provider();
+            provider.setId("provider-" + i);
+            provider.setEmail("provider-" + i + "@example.com");
+            tokens.add(jwtService.generateToken(provider));
+        }
+        return tokens;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+
+    private record Result(double p99Millis, int timeouts, int errors) {
+    }
+}
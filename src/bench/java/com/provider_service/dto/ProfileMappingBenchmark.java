@@ -0,0 +1,50 @@
+package com.provider_service.dto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.provider_service.models.Provider;
+
+/**
+ * Cost of ProviderProfileMapper on the profile and directory endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfileMappingBenchmark {
+
+    private Provider provider;
+
+    @Setup
+    public void setUp() {
+        provider = new Provider("provider@example.com", "hash");
+        provider.setId("provider-1");
+        provider.setFullName("Jane Doe");
+        provider.setProfessionalTitle("MD");
+        provider.setSpecialty("Cardiology");
+        provider.setSubSpecialties(List.of("Electrophysiology", "Heart Failure"));
+        provider.setStateLicenses(List.of("CA", "NY", "TX"));
+        provider.setPrimaryClinicName("Springfield Heart Clinic");
+        provider.setClinicAddress("1 Main Street, Springfield");
+        provider.setContactNumber("+1-555-0100");
+    }
+
+    @Benchmark
+    public ProviderProfileDTO toProfileDTO() {
+        return ProviderProfileMapper.toProfileDTO(provider);
+    }
+}
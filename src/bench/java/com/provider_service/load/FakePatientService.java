@@ -0,0 +1,112 @@
+package com.provider_service.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.provider_service.config.RabbitConfig;
+import com.provider_service.dto.PatientDTO;
+import com.provider_service.dto.PatientLookupRequest;
+import com.provider_service.dto.PatientLookupResponse;
+import com.provider_service.dto.PatientPageDTO;
+import com.provider_service.dto.PatientSyncRequest;
+
+/**
+ * Stands in for patient-service on a real broker. Consumes the sync and lookup
+ * requests provider-service publishes and answers each one after a fixed
+ * latency, on the request's replyTo queue with its correlation id, the way
+ * patient-service does. Status updates relayed by the outbox are consumed and
+ * counted.
+ *
+ * Every provider has the same panel of fake-patient-service.panel-size
+ * patients; replies are scheduled, so a slow reply never holds a consumer.
+ * Import it into a context whose RabbitMQ is a Testcontainers broker.
+ */
+public class FakePatientService implements DisposableBean {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final long replyLatencyMillis;
+    private final List<PatientDTO> panel;
+    private final ScheduledExecutorService replies = Executors.newScheduledThreadPool(4);
+    private final AtomicLong statusUpdates = new AtomicLong();
+
+    public FakePatientService(
+            RabbitTemplate rabbitTemplate,
+            @Value("${fake-patient-service.reply-latency-ms:20}") long replyLatencyMillis,
+            @Value("${fake-patient-service.panel-size:50}") int panelSize) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.replyLatencyMillis = replyLatencyMillis;
+        this.panel = samplePanel(panelSize);
+    }
+
+    // Panel syncs are answered with the whole list, paged syncs with one page
+    @RabbitListener(queues = RabbitConfig.PATIENT_SYNC_QUEUE, concurrency = "2")
+    public void answerSync(PatientSyncRequest request, Message message) {
+        if (request.getSize() == null) {
+            reply(message, panel);
+            return;
+        }
+        int size = request.getSize();
+        int from = Math.min(panel.size(), Math.max(0, request.getPage()) * size);
+        int to = Math.min(panel.size(), from + size);
+        reply(message, new PatientPageDTO(request.getRequestId(), panel.subList(from, to),
+                request.getPage(), size, panel.size(), null));
+    }
+
+    @RabbitListener(queues = RabbitConfig.PATIENT_LOOKUP_QUEUE, concurrency = "2")
+    public void answerLookup(PatientLookupRequest request, Message message) {
+        PatientDTO patient = panel.stream()
+                .filter(p -> p.getId().equals(request.getPatientId()))
+                .findFirst()
+                .orElse(null);
+        reply(message, new PatientLookupResponse(request.getRequestId(), patient));
+    }
+
+    @RabbitListener(queues = RabbitConfig.PATIENT_STATUS_QUEUE, concurrency = "2")
+    public void acceptStatusUpdate(Message message) {
+        statusUpdates.incrementAndGet();
+    }
+
+    public long statusUpdates() {
+        return statusUpdates.get();
+    }
+
+    @Override
+    public void destroy() {
+        replies.shutdownNow();
+    }
+
+    private void reply(Message request, Object body) {
+        MessageProperties properties = request.getMessageProperties();
+        String replyTo = properties.getReplyTo();
+        String correlationId = properties.getCorrelationId();
+        replies.schedule(() -> rabbitTemplate.convertAndSend("", replyTo, body, reply -> {
+            reply.getMessageProperties().setCorrelationId(correlationId);
+            return reply;
+        }), replyLatencyMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static List<PatientDTO> samplePanel(int size) {
+        List<PatientDTO> patients = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            patients.add(PatientDTO.builder()
+                    .id("patient-" + i)
+                    .email("patient" + i + "@example.com")
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .accountStatus(i % 2 == 0 ? "ACTIVE" : "PENDING")
+                    .build());
+        }
+        return patients;
+    }
+}
@@ -0,0 +1,248 @@
+package com.provider_service.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Drives register/login/profile/patient-list/activate traffic through the
+ * HTTP API at a fixed concurrency and reports throughput, p50/p99/p999
+ * latency and timeout rate per endpoint.
+ *
+ * Mongo and RabbitMQ run in containers, so every request goes through the
+ * real message conversion, reply queues, batch listeners and publisher
+ * confirms. FakePatientService answers the sync requests after a fixed
+ * latency and consumes the relayed status updates.
+ *
+ * <pre>
+ * ./mvnw -P benchmarks test -Dtest=ProviderServiceLoadTest \
+ *     -Dload.concurrency=50 -Dload.iterations=20 -Dload.replyLatencyMs=20 -Dload.panelSize=50
+ * </pre>
+ *
+ * The patient read model TTL defaults to 0 so every patient-list call is a
+ * broker round trip; pass -Dload.patientCacheTtlMs=300000 to measure warm reads.
+ * The run fails on any error, on a timeout rate above -Dload.maxTimeoutRate
+ * (default 0.01) or when an accepted activation never reaches the broker.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "patient.cache.ttl-ms=${load.patientCacheTtlMs:0}",
+        // every virtual user is its own provider; measure the service, not the per-provider limit
+        "provider.rate-limit.requests-per-second=${load.providerRateLimit:1000000}",
+        "fake-patient-service.reply-latency-ms=${load.replyLatencyMs:20}",
+        "fake-patient-service.panel-size=${load.panelSize:50}",
+        "logging.level.com.provider_service=WARN",
+        "logging.level.com.provider_service.load=INFO",
+        "logging.level.org.springframework.amqp=WARN"
+})
+@Import(FakePatientService.class)
+@Testcontainers(disabledWithoutDocker = true)
+class ProviderServiceLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderServiceLoadTest.class);
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 50);
+    private static final int ITERATIONS = Integer.getInteger("load.iterations", 20);
+    private static final int PANEL_SIZE = Integer.getInteger("load.panelSize", 50);
+    private static final double MAX_TIMEOUT_RATE = Double.parseDouble(System.getProperty("load.maxTimeoutRate", "0.01"));
+    private static final Duration CLIENT_TIMEOUT = Duration.ofMillis(Long.getLong("load.clientTimeoutMs", 10_000));
+    private static final Duration RELAY_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final List<String> ENDPOINTS = List.of("register", "login", "profile", "patients", "activate");
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Container
+    @ServiceConnection
+    static RabbitMQContainer rabbit = new RabbitMQContainer("rabbitmq:3.13-management");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FakePatientService patientService;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(CLIENT_TIMEOUT).build();
+    private final Map<String, EndpointStats> stats = ENDPOINTS.stream()
+            .collect(Collectors.toMap(e -> e, e -> new EndpointStats()));
+
+    @Test
+    void providerTrafficAtConfiguredConcurrency() throws Exception {
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        ExecutorService users = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Future<?>> sessions = new ArrayList<>(CONCURRENCY);
+
+        long start = System.nanoTime();
+        try {
+            for (int u = 0; u < CONCURRENCY; u++) {
+                String email = "load-" + runId + "-" + u + "@example.com";
+                sessions.add(users.submit(() -> {
+                    session(email);
+                    return null;
+                }));
+            }
+            for (Future<?> session : sessions) {
+                session.get();
+            }
+        } finally {
+            users.shutdownNow();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        log.info("concurrency={} iterations={} panelSize={} elapsed={}s",
+                CONCURRENCY, ITERATIONS, PANEL_SIZE, String.format("%.1f", elapsedSeconds));
+        log.info(String.format("%-10s %8s %10s %9s %9s %9s %8s %9s",
+                "endpoint", "requests", "req/s", "p50(ms)", "p99(ms)", "p999(ms)", "errors", "timeouts"));
+        ENDPOINTS.forEach(endpoint -> log.info(stats.get(endpoint).summary(endpoint, elapsedSeconds)));
+
+        assertThat(stats).allSatisfy((endpoint, s) -> {
+            assertThat(s.errors.get()).as("%s errors", endpoint).isZero();
+            assertThat(s.timeoutRate()).as("%s timeout rate", endpoint).isLessThanOrEqualTo(MAX_TIMEOUT_RATE);
+        });
+        assertActivationsRelayed(stats.get("activate").accepted.get());
+    }
+
+    // Accepted activations sit in the outbox until the relay publishes them and the broker confirms
+    private void assertActivationsRelayed(int accepted) throws InterruptedException {
+        long deadline = System.nanoTime() + RELAY_TIMEOUT.toNanos();
+        while (patientService.statusUpdates() < accepted && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        assertThat(patientService.statusUpdates()).as("status updates relayed to patient-service")
+                .isGreaterThanOrEqualTo(accepted);
+    }
+
+    // One virtual user: register and log in once, then loop over the authenticated endpoints
+    private void session(String email) throws Exception {
+        String credentials = objectMapper.writeValueAsString(Map.of("email", email, "password", "load-test-password"));
+        call("register", post("/api/auth/register", credentials, null));
+        JsonNode login = call("login", post("/api/auth/login", credentials, null));
+        if (login == null || !login.hasNonNull("token")) {
+            return;
+        }
+        String token = login.get("token").asText();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            call("profile", get("/api/auth/profile", token));
+            call("patients", get("/api/providers/patients?status=ACTIVE", token));
+            call("activate", post("/api/providers/patients/patient-" + (i % PANEL_SIZE) + "/activate",
+                    "{\"reason\":\"load test\"}", token));
+        }
+    }
+
+    // 504 is the service reporting a patient-service timeout, everything else >= 300 is an error
+    private JsonNode call(String endpoint, HttpRequest request) {
+        EndpointStats endpointStats = stats.get(endpoint);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            endpointStats.latencies.add(System.nanoTime() - start);
+            if (response.statusCode() == 504) {
+                endpointStats.timeouts.incrementAndGet();
+                return null;
+            }
+            if (response.statusCode() >= 300) {
+                endpointStats.errors.incrementAndGet();
+                return null;
+            }
+            endpointStats.accepted.incrementAndGet();
+            return objectMapper.readTree(response.body());
+        } catch (HttpTimeoutException e) {
+            endpointStats.latencies.add(System.nanoTime() - start);
+            endpointStats.timeouts.incrementAndGet();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (Exception e) {
+            endpointStats.latencies.add(System.nanoTime() - start);
+            endpointStats.errors.incrementAndGet();
+            return null;
+        }
+    }
+
+    private HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
+
+    private HttpRequest post(String path, String json, String token) {
+        return request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(CLIENT_TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private static final class EndpointStats {
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger accepted = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+        private final AtomicInteger timeouts = new AtomicInteger();
+
+        double timeoutRate() {
+            int count = latencies.size();
+            return count == 0 ? 0.0 : (double) timeouts.get() / count;
+        }
+
+        String summary(String endpoint, double elapsedSeconds) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            int count = sorted.length;
+            return String.format("%-10s %8d %10.1f %9.1f %9.1f %9.1f %8d %8.2f%%",
+                    endpoint, count, count / elapsedSeconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                    errors.get(), 100.0 * timeoutRate());
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
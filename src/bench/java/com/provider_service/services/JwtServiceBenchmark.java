@@ -0,0 +1,89 @@
+package com.provider_service.services;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.provider_service.models.Provider;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Per-request JWT cost: signing at login, and verification in the
+ * authentication filter with and without the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private JwtService cached;
+    private JwtService uncached;
+    private Provider provider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = newJwtService(true);
+        uncached = newJwtService(false);
+        provider = new Provider("provider@example.com", "hash");
+        provider.setId("provider-1");
+        token = cached.generateToken(provider);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cached.generateToken(provider);
+    }
+
+    @Benchmark
+    public String extractUsernameCached() {
+        return cached.extractUsername(token);
+    }
+
+    @Benchmark
+    public String extractUsernameUncached() {
+        return uncached.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValidCached() {
+        return cached.isTokenValid(token, provider);
+    }
+
+    @Benchmark
+    public boolean isTokenValidUncached() {
+        return uncached.isTokenValid(token, provider);
+    }
+
+    @Benchmark
+    public Claims validateTokenUncached() {
+        return uncached.validateToken(token);
+    }
+
+    private static JwtService newJwtService(boolean cacheEnabled) {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", "mySecretKey123456789012345678901234567890");
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtService, "cacheMaxSize", 10_000);
+        // disabled, every call goes through the signature-verifying parser
+        ReflectionTestUtils.setField(jwtService, "cacheEnabled", cacheEnabled);
+        ReflectionTestUtils.setField(jwtService, "meterRegistry", new SimpleMeterRegistry());
+        jwtService.init();
+        return jwtService;
+    }
+}
@@ -0,0 +1,72 @@
+package com.provider_service.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.provider_service.dto.PatientDTO;
+
+/**
+ * Status filtering of a provider's panel: the linear stream filter applied
+ * to sync responses against the read model's status index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientFilterBenchmark {
+
+    private static final String[] STATUSES = { "PENDING", "ACTIVE", "INACTIVE" };
+
+    @Param({ "10", "1000", "20000" })
+    private int panelSize;
+
+    private List<PatientDTO> panel;
+    private PatientReadModel readModel;
+
+    @Setup
+    public void setUp() {
+        panel = new ArrayList<>(panelSize);
+        for (int i = 0; i < panelSize; i++) {
+            panel.add(PatientDTO.builder()
+                    .id("patient-" + i)
+                    .email("patient" + i + "@example.com")
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .accountStatus(STATUSES[i % STATUSES.length])
+                    .build());
+        }
+        readModel = new PatientReadModel(10, TimeUnit.HOURS.toMillis(1), 3000);
+        readModel.load("provider-1", panel, readModel.syncToken());
+    }
+
+    // What filtering each sync response costs without the index
+    @Benchmark
+    public List<PatientDTO> streamFilter() {
+        return ProviderPatientService.filterByStatus(panel, "PENDING");
+    }
+
+    @Benchmark
+    public List<PatientDTO> readModelIndex() {
+        return readModel.findPatients("provider-1", "PENDING").orElseThrow();
+    }
+
+    @Benchmark
+    public PatientDTO readModelById() {
+        return readModel.findPatient("provider-1", "patient-" + (panelSize / 2)).orElseThrow();
+    }
+}
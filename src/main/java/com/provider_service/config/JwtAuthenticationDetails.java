@@ -0,0 +1,24 @@
+package com.provider_service.config;
+
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Request details of a JWT authentication, recording whether the principal
+ * was built from the token claims alone (stateless auth) rather than loaded
+ * from Mongo, in which case it only carries id, email and role.
+ */
+public class JwtAuthenticationDetails extends WebAuthenticationDetails {
+
+    private final boolean claimsOnly;
+
+    public JwtAuthenticationDetails(HttpServletRequest request, boolean claimsOnly) {
+        super(request);
+        this.claimsOnly = claimsOnly;
+    }
+
+    public boolean isClaimsOnly() {
+        return claimsOnly;
+    }
+}
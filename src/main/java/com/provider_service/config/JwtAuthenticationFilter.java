@@ -3,17 +3,22 @@ package com.provider_service.config;
 import java.io.IOException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.provider_service.models.Provider;
+import com.provider_service.models.Role;
 import com.provider_service.services.JwtService;
 import com.provider_service.services.ProviderService;
+import com.provider_service.services.TokenRevocationService;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,6 +33,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private ProviderService providerService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // Build the principal from verified claims instead of loading the provider from Mongo
+    @Value("${jwt.stateless-auth:false}")
+    private boolean statelessAuth;
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -45,23 +57,47 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
+        final Claims claims;
+        try {
+            // one verification per token; the claims are reused for every check below
+            claims = jwtService.validateToken(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        userEmail = claims.getSubject();
 
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.providerService.loadUserByUsername(userEmail);
+            if (tokenRevocationService.isRevoked(userEmail, jwtService.issuedAtMillis(claims))) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            boolean claimsOnly = statelessAuth && claims.get("providerId") != null;
+            UserDetails userDetails = claimsOnly ?
+                    providerFromClaims(claims) :
+                    this.providerService.loadUserByUsername(userEmail);
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (userEmail.equals(userDetails.getUsername())) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
                         userDetails.getAuthorities()
                 );
-                authToken.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
-                );
+                authToken.setDetails(new JwtAuthenticationDetails(request, claimsOnly));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
         filterChain.doFilter(request, response);
     }
+
+    private Provider providerFromClaims(Claims claims) {
+        Provider provider = new Provider();
+        provider.setId(claims.get("providerId", String.class));
+        provider.setEmail(claims.getSubject());
+        String role = claims.get("role", String.class);
+        if (role != null) {
+            provider.setRole(Role.valueOf(role));
+        }
+        return provider;
+    }
 }
@@ -0,0 +1,84 @@
+package com.provider_service.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Correlation;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Picks the encoding of each outgoing message from what the consumers on its
+ * exchange declared. A peer declares Smile by listing it in
+ * {@link RabbitConfig#ACCEPT_CONTENT_TYPE_HEADER} on the messages it publishes
+ * to an exchange; from then on what this instance publishes there goes out as
+ * Smile, until a message from that exchange arrives without the declaration.
+ * Every other exchange gets JSON.
+ *
+ * The converter has no destination to go by, so messages are converted to
+ * JSON and transcoded here, before compression.
+ */
+public class PeerWireFormats implements MessagePostProcessor {
+
+    private final Set<String> smileExchanges = ConcurrentHashMap.newKeySet();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final SmileFactory smileFactory = new SmileFactory();
+
+    /**
+     * After-receive step for every listener: remembers whether the publisher
+     * of the message accepts Smile. Replies arrive through the default
+     * exchange, which this service never publishes to, so they declare nothing.
+     */
+    public Message recordDeclaration(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        String exchange = properties.getReceivedExchange();
+        if (exchange == null || exchange.isEmpty()) {
+            return message;
+        }
+        Object accepted = properties.getHeader(RabbitConfig.ACCEPT_CONTENT_TYPE_HEADER);
+        if (accepted != null && accepted.toString().contains(SmileMessageConverter.CONTENT_TYPE)) {
+            smileExchanges.add(exchange);
+        } else {
+            smileExchanges.remove(exchange);
+        }
+        return message;
+    }
+
+    public boolean acceptsSmile(String exchange) {
+        return smileExchanges.contains(exchange);
+    }
+
+    @Override
+    public Message postProcessMessage(Message message) throws AmqpException {
+        return message;
+    }
+
+    @Override
+    public Message postProcessMessage(Message message, Correlation correlation, String exchange, String routingKey) {
+        MessageProperties properties = message.getMessageProperties();
+        if (!MessageProperties.CONTENT_TYPE_JSON.equals(properties.getContentType()) || !acceptsSmile(exchange)) {
+            return message;
+        }
+        ByteArrayOutputStream smile = new ByteArrayOutputStream(message.getBody().length);
+        try (JsonParser parser = jsonFactory.createParser(message.getBody());
+             JsonGenerator generator = smileFactory.createGenerator(smile)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        } catch (IOException e) {
+            throw new AmqpException("Failed to encode message as Smile", e);
+        }
+        properties.setContentType(SmileMessageConverter.CONTENT_TYPE);
+        properties.setContentEncoding(null);
+        properties.setContentLength(smile.size());
+        return new Message(smile.toByteArray(), properties);
+    }
+}
@@ -0,0 +1,116 @@
+package com.provider_service.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Per-provider token bucket on /api/providers/**, answering 429 once a
+ * provider exceeds its rate. Runs after JwtAuthenticationFilter so buckets are
+ * keyed by the authenticated provider; anonymous requests pass through and are
+ * rejected by the authorization rules instead.
+ *
+ * Each bucket is a single AtomicLong holding the time at which it will be full
+ * again (the GCRA form of a token bucket), updated by CAS without locks.
+ * A bucket left idle for longer than a full refill is full anyway, so buckets
+ * expire after that idle time and the map is capped at max-buckets.
+ */
+@Component
+public class ProviderRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String LIMITED_PATH = "/api/providers/";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${provider.rate-limit.requests-per-second:20}")
+    private double requestsPerSecond;
+
+    @Value("${provider.rate-limit.burst:40}")
+    private int burst;
+
+    @Value("${provider.rate-limit.max-buckets:100000}")
+    private long maxBuckets;
+
+    private long intervalNanos;
+    private long burstNanos;
+    private Cache<String, AtomicLong> buckets;
+
+    @PostConstruct
+    void init() {
+        intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        burstNanos = intervalNanos * burst;
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(Duration.ofNanos(burstNanos).plusSeconds(1))
+                .build();
+        meterRegistry.gauge("provider.rate.limit.buckets", buckets, Cache::estimatedSize);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getServletPath().startsWith(LIMITED_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = tryConsume(buckets.get(authentication.getName(), k -> new AtomicLong(System.nanoTime())));
+        if (waitNanos > 0) {
+            meterRegistry.counter("provider.rate.limited").increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Too many requests for this provider, retry later\"}");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Returns 0 when a token was taken, otherwise how long until the next one is available
+    private long tryConsume(AtomicLong fullAt) {
+        long now = System.nanoTime();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                return next - now - burstNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
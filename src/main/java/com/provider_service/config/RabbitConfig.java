@@ -1,12 +1,24 @@
 package com.provider_service.config;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 public class RabbitConfig {
@@ -19,27 +31,142 @@ public class RabbitConfig {
     public static final String PATIENT_SYNC_ROUTING_KEY = "patient.sync.request";
     public static final String PATIENT_SYNC_RESPONSE_QUEUE = "patient.sync.response.queue";
     public static final String PATIENT_SYNC_RESPONSE_ROUTING_KEY = "patient.sync.response";
+    // Paged sync requests go through PATIENT_SYNC_ROUTING_KEY, pages come back here
+    public static final String PATIENT_SYNC_PAGE_RESPONSE_QUEUE = "patient.sync.page.response.queue";
+    public static final String PATIENT_SYNC_PAGE_RESPONSE_ROUTING_KEY = "patient.sync.page.response";
+    public static final String PATIENT_LOOKUP_QUEUE = "patient.lookup.queue";
+    public static final String PATIENT_LOOKUP_ROUTING_KEY = "patient.lookup.request";
+    public static final String PATIENT_LOOKUP_RESPONSE_QUEUE = "patient.lookup.response.queue";
+    public static final String PATIENT_LOOKUP_RESPONSE_ROUTING_KEY = "patient.lookup.response";
+    // Status changes applied by patient-service, fanned out to every provider-service instance
+    public static final String PATIENT_STATUS_CHANGED_ROUTING_KEY = "patient.status.changed";
+    // Provider cache invalidations, broadcast between provider-service instances
+    public static final String PROVIDER_CACHE_EXCHANGE = "provider.cache.exchange";
+
+    public static final String BATCH_LISTENER_CONTAINER_FACTORY = "batchRabbitListenerContainerFactory";
+
+    // Set on requests so the replying peer can pick an encoding we decode
+    public static final String ACCEPT_CONTENT_TYPE_HEADER = "x-accept-content-type";
+    public static final String ACCEPTED_CONTENT_TYPES = SmileMessageConverter.CONTENT_TYPE + ", " + MessageProperties.CONTENT_TYPE_JSON;
+
+    @Value("${patient.wire.compression-threshold-bytes:0}")
+    private int compressionThresholdBytes;
+
+    // One summary per consumer queue, looked up for every delivery
+    private final Map<String, DistributionSummary> consumedPayloadSizes = new ConcurrentHashMap<>();
+
+    /**
+     * Decodes JSON and Smile by the message's content type. Encodes JSON unless
+     * the message properties already ask for Smile; peerWireFormats switches
+     * outgoing messages to Smile per exchange once its consumers declared it.
+     */
+    @Bean
+    public MessageConverter messageConverter() {
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+        SmileMessageConverter smile = new SmileMessageConverter();
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(SmileMessageConverter.CONTENT_TYPE, smile);
+        return converter;
+    }
 
     @Bean
-    public Jackson2JsonMessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public PeerWireFormats peerWireFormats() {
+        return new PeerWireFormats();
     }
 
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(messageConverter());
+        // unroutable messages come back as returns instead of being dropped silently
+        template.setMandatory(true);
+        // pick the encoding before compressing the result
+        if (compressionThresholdBytes > 0) {
+            template.setBeforePublishPostProcessors(peerWireFormats(), new ThresholdGZipPostProcessor(compressionThresholdBytes));
+        } else {
+            template.setBeforePublishPostProcessors(peerWireFormats());
+        }
+        template.setAfterReceivePostProcessors(new DelegatingDecompressingPostProcessor());
         return template;
     }
 
+    // spring.rabbitmq.listener.simple.* (prefetch, concurrency, retry, auto-startup) applies through the configurer
     @Bean
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
-            ConnectionFactory connectionFactory) {
+            ConnectionFactory connectionFactory,
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            MeterRegistry meterRegistry) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
-        factory.setConnectionFactory(connectionFactory);
-        factory.setMessageConverter(messageConverter());
+        configureListenerFactory(factory, connectionFactory, configurer, virtualThreads, meterRegistry);
         return factory;
     }
+
+    /**
+     * Consumer-batching factory for event listeners: each consumer collects up
+     * to batch-size deliveries and hands them to the listener as one list.
+     * receive-timeout applies to every single receive, so a trickle of
+     * messages could hold a partial batch for up to batch-size times that
+     * long; max-wait caps the time from the first message of a batch to its
+     * delivery. Request/reply listeners stay on the default factory. Consumers
+     * are added while they stay busy and removed once idle, between
+     * concurrency and max-concurrency.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory batchRabbitListenerContainerFactory(
+            ConnectionFactory connectionFactory,
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            MeterRegistry meterRegistry,
+            @Value("${patient.listener.batch.size:1}") int batchSize,
+            @Value("${patient.listener.batch.receive-timeout-ms:10}") long receiveTimeoutMillis,
+            @Value("${patient.listener.batch.max-wait-ms:50}") long maxWaitMillis,
+            @Value("${patient.listener.batch.prefetch:50}") int prefetch,
+            @Value("${patient.listener.batch.concurrency:1}") int concurrency,
+            @Value("${patient.listener.batch.max-concurrency:4}") int maxConcurrency,
+            @Value("${patient.listener.batch.consecutive-active-trigger:10}") int consecutiveActiveTrigger,
+            @Value("${patient.listener.batch.consecutive-idle-trigger:10}") int consecutiveIdleTrigger) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configureListenerFactory(factory, connectionFactory, configurer, virtualThreads, meterRegistry);
+        // the spring.rabbitmq.listener.simple.retry interceptor would retry a whole batch for one bad
+        // message; batch listeners handle failures per message instead
+        factory.setAdviceChain();
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMillis);
+        factory.setBatchReceiveTimeout(maxWaitMillis);
+        // a batch can never be larger than what the broker lets the consumer hold
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(Math.max(concurrency, maxConcurrency));
+        factory.setConsecutiveActiveTrigger(consecutiveActiveTrigger);
+        factory.setConsecutiveIdleTrigger(consecutiveIdleTrigger);
+        return factory;
+    }
+
+    private void configureListenerFactory(SimpleRabbitListenerContainerFactory factory,
+            ConnectionFactory connectionFactory, SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            boolean virtualThreads, MeterRegistry meterRegistry) {
+        configurer.configure(factory, connectionFactory);
+        factory.setMessageConverter(messageConverter());
+        // body size as it came off the wire, then gzip bodies are inflated before conversion;
+        // last, note whether the publisher declared Smile support
+        factory.setAfterReceivePostProcessors(message -> {
+            consumedPayloadSizes.computeIfAbsent(String.valueOf(message.getMessageProperties().getConsumerQueue()),
+                    queue -> DistributionSummary.builder("rabbitmq.consumed.payload")
+                            .baseUnit("bytes")
+                            .tag("queue", queue)
+                            .register(meterRegistry))
+                    .record(message.getBody().length);
+            return message;
+        }, new DelegatingDecompressingPostProcessor(), peerWireFormats()::recordDeclaration);
+        if (virtualThreads) {
+            // requires Java 21, see the virtual-threads Maven and Spring profiles
+            factory.setTaskExecutor(new VirtualThreadTaskExecutor("rabbit-listener-"));
+        }
+    }
     
     @Bean
     public Queue patientSyncResponseQueue() {
@@ -52,6 +179,11 @@ public class RabbitConfig {
         return new TopicExchange(PATIENT_EXCHANGE, true, false);
     }
 
+    @Bean
+    public FanoutExchange providerCacheExchange() {
+        return new FanoutExchange(PROVIDER_CACHE_EXCHANGE, true, false);
+    }
+
     // Queues
     @Bean
     public Queue patientStatusQueue() {
@@ -63,6 +195,49 @@ public class RabbitConfig {
         return QueueBuilder.durable(PATIENT_SYNC_QUEUE).build();
     }
 
+    @Bean
+    public Queue patientSyncPageResponseQueue() {
+        return QueueBuilder.durable(PATIENT_SYNC_PAGE_RESPONSE_QUEUE).build();
+    }
+
+    @Bean
+    public Queue patientLookupQueue() {
+        return QueueBuilder.durable(PATIENT_LOOKUP_QUEUE).build();
+    }
+
+    @Bean
+    public Queue patientLookupResponseQueue() {
+        return QueueBuilder.durable(PATIENT_LOOKUP_RESPONSE_QUEUE).build();
+    }
+
+    // One exclusive, auto-delete queue per instance so every local read model sees each event
+    @Bean
+    public Queue patientStatusEventsQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("provider.patient.status.events."));
+    }
+
+    @Bean
+    public Queue providerCacheInvalidationQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("provider.cache.invalidation."));
+    }
+
+    // Per-instance reply queues, passed as replyTo so patient-service answers the node
+    // that is waiting; peers reply to them through the default exchange, no binding needed
+    @Bean
+    public Queue patientSyncReplyQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("provider.patient.sync.reply."));
+    }
+
+    @Bean
+    public Queue patientSyncPageReplyQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("provider.patient.sync.page.reply."));
+    }
+
+    @Bean
+    public Queue patientLookupReplyQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("provider.patient.lookup.reply."));
+    }
+
     // Bindings
     @Bean
     public Binding patientStatusBinding() {
@@ -87,5 +262,43 @@ public class RabbitConfig {
                 .to(patientExchange())
                 .with(PATIENT_SYNC_RESPONSE_ROUTING_KEY);
     }
-}
 
+    @Bean
+    public Binding patientSyncPageResponseBinding() {
+        return BindingBuilder
+                .bind(patientSyncPageResponseQueue())
+                .to(patientExchange())
+                .with(PATIENT_SYNC_PAGE_RESPONSE_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding patientLookupBinding() {
+        return BindingBuilder
+                .bind(patientLookupQueue())
+                .to(patientExchange())
+                .with(PATIENT_LOOKUP_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding patientLookupResponseBinding() {
+        return BindingBuilder
+                .bind(patientLookupResponseQueue())
+                .to(patientExchange())
+                .with(PATIENT_LOOKUP_RESPONSE_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding patientStatusEventsBinding() {
+        return BindingBuilder
+                .bind(patientStatusEventsQueue())
+                .to(patientExchange())
+                .with(PATIENT_STATUS_CHANGED_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding providerCacheInvalidationBinding() {
+        return BindingBuilder
+                .bind(providerCacheInvalidationQueue())
+                .to(providerCacheExchange());
+    }
+}
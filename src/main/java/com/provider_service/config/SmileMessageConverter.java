@@ -0,0 +1,51 @@
+package com.provider_service.config;
+
+import java.lang.reflect.Type;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJackson2MessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+/**
+ * Jackson Smile (binary JSON) converter: same object model and type headers as
+ * Jackson2JsonMessageConverter, but field names are back-referenced and numbers
+ * are binary, so big patient lists are smaller and cheaper to decode.
+ */
+public class SmileMessageConverter extends AbstractJackson2MessageConverter {
+
+    public static final String CONTENT_TYPE = "application/x-jackson-smile";
+
+    public SmileMessageConverter() {
+        this("*");
+    }
+
+    public SmileMessageConverter(String... trustedPackages) {
+        super(SmileMapper.builder()
+                        .findAndAddModules()
+                        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                        .build(),
+                MimeTypeUtils.parseMimeType(CONTENT_TYPE), trustedPackages);
+    }
+
+    // Smile is binary: a content encoding would make the base class decode the body as text
+    @Override
+    protected Message createMessage(Object objectToConvert, MessageProperties messageProperties,
+            @Nullable Type genericType) throws MessageConversionException {
+        Message message = super.createMessage(objectToConvert, messageProperties, genericType);
+        message.getMessageProperties().setContentEncoding(null);
+        return message;
+    }
+
+    // Ignores whatever charset the sender (or gzip decompression) left in the content encoding
+    @Override
+    public Object fromMessage(Message message, @Nullable Object conversionHint) throws MessageConversionException {
+        message.getMessageProperties().setContentEncoding(null);
+        return super.fromMessage(message, conversionHint);
+    }
+}
@@ -0,0 +1,27 @@
+package com.provider_service.config;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.support.postprocessor.GZipPostProcessor;
+
+/**
+ * Gzips outgoing bodies of at least {@code thresholdBytes}; smaller messages
+ * go out untouched because compressing them costs more CPU than it saves on
+ * the wire. Receivers decompress based on the content-encoding header.
+ */
+public class ThresholdGZipPostProcessor extends GZipPostProcessor {
+
+    private final int thresholdBytes;
+
+    public ThresholdGZipPostProcessor(int thresholdBytes) {
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    @Override
+    public Message postProcessMessage(Message message) throws AmqpException {
+        if (message.getBody().length < thresholdBytes) {
+            return message;
+        }
+        return super.postProcessMessage(message);
+    }
+}
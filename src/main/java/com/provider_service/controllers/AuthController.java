@@ -1,24 +1,39 @@
 package com.provider_service.controllers;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.provider_service.config.JwtAuthenticationDetails;
 import com.provider_service.dto.AuthRequest;
 import com.provider_service.dto.AuthResponse;
 import com.provider_service.dto.ProfileCompletionRequest;
 import com.provider_service.dto.ProviderProfileDTO;
+import com.provider_service.dto.ProviderProfileMapper;
 import com.provider_service.dto.RegisterRequest;
+import com.provider_service.exceptions.InvalidIfMatchException;
 import com.provider_service.models.Provider;
 import com.provider_service.services.JwtService;
+import com.provider_service.services.PasswordHashingExecutor;
 import com.provider_service.services.ProviderService;
 
 import jakarta.validation.Valid;
@@ -48,6 +63,9 @@ public class AuthController {
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
     
     @Operation(
         summary = "Inscription d'un nouveau fournisseur",
@@ -63,10 +81,15 @@ public class AuthController {
             responseCode = "400",
             description = "Erreur lors de l'inscription - Email déjà utilisé ou données invalides",
             content = @Content(schema = @Schema(implementation = AuthResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "429",
+            description = "Trop de demandes d'authentification en cours - réessayer plus tard",
+            content = @Content(schema = @Schema(implementation = AuthResponse.class))
         )
     })
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(
+    public CompletableFuture<ResponseEntity<AuthResponse>> register(
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
                 description = "Informations d'inscription du fournisseur",
                 required = true,
@@ -74,12 +97,18 @@ public class AuthController {
             )
             @Valid @RequestBody RegisterRequest request) {
         try {
-            Provider provider = providerService.registerProvider(request.getEmail(), request.getPassword());
-            String token = jwtService.generateToken(provider);
-
-            return ResponseEntity.ok(new AuthResponse(token, "Registration successful", provider.getEmail(), provider.getRole().getAuthority()));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(new AuthResponse(null, "Registration failed: " + e.getMessage(), null));
+            return passwordHashingExecutor
+                    .submit(() -> providerService.registerProvider(request.getEmail(), request.getPassword()))
+                    .thenApply(provider -> {
+                        String token = jwtService.generateToken(provider);
+                        return ResponseEntity.ok(new AuthResponse(token, "Registration successful", provider.getEmail(), provider.getRole().getAuthority()));
+                    })
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        return ResponseEntity.badRequest().body(new AuthResponse(null, "Registration failed: " + cause.getMessage(), null));
+                    });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(tooManyRequests());
         }
     }
 
@@ -98,10 +127,15 @@ public class AuthController {
             responseCode = "400",
             description = "Identifiants invalides - Email ou mot de passe incorrect",
             content = @Content(schema = @Schema(implementation = AuthResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "429",
+            description = "Trop de demandes d'authentification en cours - réessayer plus tard",
+            content = @Content(schema = @Schema(implementation = AuthResponse.class))
         )
     })
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
                 description = "Identifiants de connexion",
                 required = true,
@@ -109,29 +143,30 @@ public class AuthController {
             )
             @Valid @RequestBody AuthRequest request) {
         try {
-            Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-            );
-
-            Provider provider = (Provider) authentication.getPrincipal();
-            String token = jwtService.generateToken(provider);
-
-            return ResponseEntity.ok(new AuthResponse(token, "Login successful", provider.getEmail(), provider.getRole().getAuthority()));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(new AuthResponse(null, "Invalid credentials", null));
+            return passwordHashingExecutor
+                    .submit(() -> authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
+                    ))
+                    .thenApply(authentication -> {
+                        Provider provider = (Provider) authentication.getPrincipal();
+                        String token = jwtService.generateToken(provider);
+                        return ResponseEntity.ok(new AuthResponse(token, "Login successful", provider.getEmail(), provider.getRole().getAuthority()));
+                    })
+                    .exceptionally(e -> ResponseEntity.badRequest().body(new AuthResponse(null, "Invalid credentials", null)));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(tooManyRequests());
         }
     }
-
     
     @Operation(
         summary = "Obtenir le profil du fournisseur",
-        description = "Récupère les informations complètes du profil du fournisseur connecté",
+        description = "Récupère les informations complètes du profil du fournisseur connecté. La version du profil est renvoyée dans l'en-tête ETag, à renvoyer dans If-Match lors d'une modification.",
         security = @SecurityRequirement(name = "bearer-jwt")
     )
     @ApiResponses(value = {
         @ApiResponse(
             responseCode = "200",
-            description = "Profil récupéré avec succès",
+            description = "Profil récupéré avec succès - version dans l'en-tête ETag",
             content = @Content(schema = @Schema(implementation = Provider.class))
         ),
         @ApiResponse(
@@ -147,7 +182,36 @@ public class AuthController {
     public ResponseEntity<Provider> getProfile(
             @Parameter(hidden = true) Authentication authentication) {
         Provider provider = (Provider) authentication.getPrincipal();
-        return ResponseEntity.ok(provider);
+        if (isClaimsOnly(authentication)) {
+            provider = providerService.findByEmail(provider.getEmail());
+        }
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(provider.getProfileVersion()))
+                .body(provider);
+    }
+
+    
+    @Operation(
+        summary = "Déconnexion du fournisseur",
+        description = "Révoque tous les tokens JWT émis jusqu'à présent pour le fournisseur connecté",
+        security = @SecurityRequirement(name = "bearer-jwt")
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Déconnexion réussie - tokens révoqués",
+            content = @Content(schema = @Schema(implementation = AuthResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Non authentifié - Token JWT manquant ou invalide"
+        )
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<AuthResponse> logout(
+            @Parameter(hidden = true) Authentication authentication) {
+        providerService.revokeTokens(authentication.getName());
+        return ResponseEntity.ok(new AuthResponse(null, "Logout successful", authentication.getName()));
     }
 
     
@@ -164,7 +228,7 @@ public class AuthController {
         ),
         @ApiResponse(
             responseCode = "400",
-            description = "Données invalides ou erreur lors de la mise à jour"
+            description = "Données invalides, en-tête If-Match invalide ou erreur lors de la mise à jour"
         ),
         @ApiResponse(
             responseCode = "401",
@@ -173,6 +237,10 @@ public class AuthController {
         @ApiResponse(
             responseCode = "403",
             description = "Accès refusé"
+        ),
+        @ApiResponse(
+            responseCode = "412",
+            description = "Le profil a été modifié depuis la version indiquée dans If-Match"
         )
     })
     @PutMapping("/complete-profile")
@@ -183,30 +251,115 @@ public class AuthController {
                 content = @Content(schema = @Schema(implementation = ProfileCompletionRequest.class))
             )
             @RequestBody ProfileCompletionRequest profileUpdates,
+            @Parameter(description = "Version du profil attendue (ETag), optionnelle")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(hidden = true) Authentication authentication) {
+        Long expectedVersion = parseVersion(ifMatch);
+        try {
+            Provider currentProvider = (Provider) authentication.getPrincipal();
+            Provider updatedProvider = providerService.completeProviderProfile(
+                    currentProvider.getId(), profileUpdates, expectedVersion);
+            return profileResponse(updatedProvider);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    
+    @Operation(
+        summary = "Modifier partiellement le profil du fournisseur",
+        description = "Met à jour uniquement les champs fournis du profil, en une seule opération atomique. Envoyer l'ETag reçu dans If-Match pour éviter d'écraser une modification concurrente. "
+                + "Un champ à null est traité comme absent : PATCH ne peut pas effacer un champ, utiliser PUT /complete-profile pour cela.",
+        security = @SecurityRequirement(name = "bearer-jwt")
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Profil mis à jour avec succès - nouvelle version dans l'en-tête ETag",
+            content = @Content(schema = @Schema(implementation = ProviderProfileDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Aucun champ à mettre à jour ou en-tête If-Match invalide"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Non authentifié - Token JWT manquant ou invalide"
+        ),
+        @ApiResponse(
+            responseCode = "412",
+            description = "Le profil a été modifié depuis la version indiquée dans If-Match"
+        )
+    })
+    @PatchMapping("/profile")
+    public ResponseEntity<ProviderProfileDTO> patchProfile(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "Champs du profil à modifier; les champs absents ou à null restent inchangés",
+                required = true,
+                content = @Content(schema = @Schema(implementation = ProfileCompletionRequest.class))
+            )
+            @RequestBody ProfileCompletionRequest profileUpdates,
+            @Parameter(description = "Version du profil attendue (ETag), optionnelle")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Parameter(hidden = true) Authentication authentication) {
+        Long expectedVersion = parseVersion(ifMatch);
         try {
             Provider currentProvider = (Provider) authentication.getPrincipal();
-            Provider updatedProvider = providerService.completeProviderProfile(currentProvider.getId(), profileUpdates);
-            ProviderProfileDTO profileDTO = convertToProfileDTO(updatedProvider);
-            return ResponseEntity.ok(profileDTO);
+            Provider updatedProvider = providerService.patchProviderProfile(
+                    currentProvider.getId(), profileUpdates, expectedVersion);
+            return profileResponse(updatedProvider);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(null);
         }
     }
 
     
-    private ProviderProfileDTO convertToProfileDTO(Provider provider) {
-        ProviderProfileDTO dto = new ProviderProfileDTO();
-        dto.setProviderID(provider.getId());
-        dto.setEmail(provider.getEmail());
-        dto.setFullName(provider.getFullName());
-        dto.setProfessionalTitle(provider.getProfessionalTitle());
-        dto.setSpecialty(provider.getSpecialty());
-        dto.setSubSpecialties(provider.getSubSpecialties());
-        dto.setStateLicenses(provider.getStateLicenses());
-        dto.setPrimaryClinicName(provider.getPrimaryClinicName());
-        dto.setClinicAddress(provider.getClinicAddress());
-        dto.setContactNumber(provider.getContactNumber());
-        return dto;
+    // Stateless authentication only carries token claims, see JwtAuthenticationFilter
+    private boolean isClaimsOnly(Authentication authentication) {
+        return authentication.getDetails() instanceof JwtAuthenticationDetails details && details.isClaimsOnly();
+    }
+
+    private ResponseEntity<ProviderProfileDTO> profileResponse(Provider provider) {
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(provider.getProfileVersion()))
+                .body(ProviderProfileMapper.toProfileDTO(provider));
+    }
+
+    // Accepts the ETag as sent back by clients: "3", W/"3" or 3
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String version = ifMatch.trim();
+        if (version.startsWith("W/")) {
+            version = version.substring(2);
+        }
+        if (version.length() >= 2 && version.startsWith("\"") && version.endsWith("\"")) {
+            version = version.substring(1, version.length() - 1);
+        }
+        try {
+            long parsed = Long.parseLong(version);
+            if (parsed >= 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new InvalidIfMatchException("If-Match must be a single profile version ETag as returned in ETag, got: " + ifMatch);
+    }
+
+    @ExceptionHandler(InvalidIfMatchException.class)
+    public ResponseEntity<Map<String, String>> invalidIfMatch(InvalidIfMatchException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    private ResponseEntity<AuthResponse> tooManyRequests() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new AuthResponse(null, "Too many authentication requests, retry later", null));
     }
 }
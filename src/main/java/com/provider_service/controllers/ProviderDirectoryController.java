@@ -0,0 +1,87 @@
+package com.provider_service.controllers;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.provider_service.dto.ProviderProfileDTO;
+import com.provider_service.dto.ProviderProfileMapper;
+import com.provider_service.dto.ProviderSearchPage;
+import com.provider_service.models.Provider;
+import com.provider_service.services.ProviderDirectoryService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@RequestMapping("/api/providers/directory")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Provider Directory", description = "Annuaire des fournisseurs de soins")
+@SecurityRequirement(name = "bearer-jwt")
+public class ProviderDirectoryController {
+
+    private final ProviderDirectoryService providerDirectoryService;
+
+    @Operation(
+        summary = "Rechercher des fournisseurs",
+        description = "Recherche paginée des fournisseurs ayant complété leur profil, par spécialité, sous-spécialité, État de licence et clinique. Les résultats sont triés par nom. Utiliser nextPageToken pour parcourir les pages suivantes à coût constant."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Page de fournisseurs récupérée avec succès",
+            content = @Content(schema = @Schema(implementation = ProviderSearchPage.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Jeton de page invalide"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Non authentifié - Token JWT manquant ou invalide"
+        )
+    })
+    @GetMapping
+    public ResponseEntity<?> searchProviders(
+            @Parameter(description = "Spécialité exacte", example = "Cardiology")
+            @RequestParam(value = "specialty", required = false) String specialty,
+            @Parameter(description = "Sous-spécialité exacte", example = "Electrophysiology")
+            @RequestParam(value = "subSpecialty", required = false) String subSpecialty,
+            @Parameter(description = "État de licence", example = "CA")
+            @RequestParam(value = "state", required = false) String state,
+            @Parameter(description = "Nom exact de la clinique principale")
+            @RequestParam(value = "clinic", required = false) String clinic,
+            @Parameter(description = "Numéro de page (ignoré lorsque pageToken est fourni)", example = "0")
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @Parameter(description = "Taille de page", example = "20")
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @Parameter(description = "Jeton de la page suivante renvoyé par la réponse précédente")
+            @RequestParam(value = "pageToken", required = false) String pageToken) {
+        try {
+            Slice<Provider> slice = providerDirectoryService.search(specialty, subSpecialty, state, clinic,
+                    page, size, pageToken);
+            List<ProviderProfileDTO> providers = slice.map(ProviderProfileMapper::toProfileDTO).getContent();
+            String nextPageToken = slice.hasNext()
+                    ? ProviderDirectoryService.pageToken(slice.getContent().get(slice.getNumberOfElements() - 1))
+                    : null;
+            return ResponseEntity.ok(new ProviderSearchPage(providers, slice.getNumber(), slice.getSize(), nextPageToken));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
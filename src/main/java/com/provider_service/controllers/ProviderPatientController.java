@@ -2,16 +2,40 @@ package com.provider_service.controllers;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Valid;
+
+import com.provider_service.dto.BulkStatusUpdateRequest;
+import com.provider_service.dto.BulkStatusUpdateResult;
 import com.provider_service.dto.PatientDTO;
+import com.provider_service.dto.PatientPageDTO;
+import com.provider_service.dto.PatientUpdateStatusDTO;
+import com.provider_service.exceptions.ServiceBusyException;
 import com.provider_service.services.ProviderPatientService;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -30,6 +54,18 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 public class ProviderPatientController {
 
     private final ProviderPatientService providerPatientService;
+    private final ObjectMapper objectMapper;
+    // the executor Spring MVC runs async request work on, resolved by name
+    private final AsyncTaskExecutor applicationTaskExecutor;
+
+    @Value("${patient.export.page-size:500}")
+    private int exportPageSize;
+
+    @Value("${patient.export.timeout-ms:120000}")
+    private long exportTimeoutMillis;
+
+    @Value("${patient.sync.timeout-ms:3000}")
+    private long patientTimeoutMillis;
 
     
     @Operation(
@@ -49,21 +85,188 @@ public class ProviderPatientController {
         @ApiResponse(
             responseCode = "403",
             description = "Accès refusé - Permissions insuffisantes"
+        ),
+        @ApiResponse(
+            responseCode = "429",
+            description = "Trop de requêtes pour ce fournisseur - réessayer après le délai Retry-After"
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Service patient indisponible ou saturé - réessayer après le délai Retry-After"
+        ),
+        @ApiResponse(
+            responseCode = "504",
+            description = "Le service patient n'a pas répondu à temps"
         )
     })
     @GetMapping("/patients")
-    public ResponseEntity<List<PatientDTO>> getPatients(
+    public CompletableFuture<ResponseEntity<List<PatientDTO>>> getPatients(
+            @Parameter(
+                description = "Statut des patients à récupérer (PENDING, ACTIVE, INACTIVE, ALL)",
+                example = "PENDING"
+            )
+            @RequestParam(value = "status", defaultValue = "PENDING") String status,
+            @Parameter(hidden = true) Authentication authentication) {
+
+        String providerId = authentication.getName();
+
+        return providerPatientService.getPatientsAsync(providerId, status)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    
+    @Operation(
+        summary = "Obtenir une page de patients",
+        description = "Récupère une page de patients du fournisseur connecté. Le filtrage par statut, le tri et la pagination sont effectués par le service patient. Activé lorsque le paramètre size est fourni."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Page de patients récupérée avec succès",
+            content = @Content(schema = @Schema(implementation = PatientPageDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Non authentifié - Token JWT manquant ou invalide"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "Accès refusé - Permissions insuffisantes"
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Service patient indisponible ou saturé - réessayer après le délai Retry-After"
+        ),
+        @ApiResponse(
+            responseCode = "504",
+            description = "Le service patient n'a pas répondu à temps"
+        )
+    })
+    @GetMapping(value = "/patients", params = "size")
+    public CompletableFuture<ResponseEntity<PatientPageDTO>> getPatientPage(
             @Parameter(
                 description = "Statut des patients à récupérer (PENDING, ACTIVE, INACTIVE, ALL)",
                 example = "PENDING"
             )
             @RequestParam(value = "status", defaultValue = "PENDING") String status,
+            @Parameter(description = "Numéro de page (à partir de 0)", example = "0")
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @Parameter(description = "Taille de la page (maximum 500)", example = "50")
+            @RequestParam(value = "size") int size,
+            @Parameter(description = "Champ de tri", example = "lastName")
+            @RequestParam(value = "sort", defaultValue = "lastName") String sort,
+            @Parameter(description = "Jeton de continuation renvoyé par la page précédente (prioritaire sur page)")
+            @RequestParam(value = "pageToken", required = false) String pageToken,
+            @Parameter(hidden = true) Authentication authentication) {
+
+        String providerId = authentication.getName();
+
+        return providerPatientService.getPatientPageAsync(providerId, status, page, size, sort, pageToken)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    
+    @Operation(
+        summary = "Exporter tous les patients (NDJSON)",
+        description = "Exporte l'ensemble des patients du fournisseur connecté au format JSON délimité par des retours à la ligne. Les pages sont récupérées et écrites au fil de l'eau, la mémoire utilisée ne dépend pas du nombre de patients. Si l'export est interrompu (service patient indisponible, délai patient.export.timeout-ms dépassé), la dernière ligne est un objet {\"error\": ..., \"exported\": n} au lieu d'un patient."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Flux de patients, un objet JSON par ligne; un objet error en dernière ligne signale un export incomplet",
+            content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = PatientDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Non authentifié - Token JWT manquant ou invalide"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "Accès refusé - Permissions insuffisantes"
+        )
+    })
+    @GetMapping(value = "/patients/export", produces = "application/x-ndjson")
+    public ResponseEntity<ResponseBodyEmitter> exportPatients(
+            @Parameter(
+                description = "Statut des patients à exporter (PENDING, ACTIVE, INACTIVE, ALL)",
+                example = "ALL"
+            )
+            @RequestParam(value = "status", defaultValue = "ALL") String status,
             @Parameter(hidden = true) Authentication authentication) {
 
         String providerId = authentication.getName();
-        List<PatientDTO> patients = providerPatientService.getPatients(providerId, status);
 
-        return ResponseEntity.ok(patients);
+        // the export checks its own deadline between pages; the emitter timeout is only a backstop
+        // for a page still in flight at the deadline
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(exportTimeoutMillis + 2 * patientTimeoutMillis);
+        AtomicBoolean abandoned = new AtomicBoolean();
+        emitter.onTimeout(() -> abandoned.set(true));
+        emitter.onError(e -> abandoned.set(true));
+        applicationTaskExecutor.execute(() -> exportPages(providerId, status, emitter, abandoned));
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(emitter);
+    }
+
+    // Writes one line per patient, page by page; ends with an error record if the export is cut short
+    private void exportPages(String providerId, String status, ResponseBodyEmitter emitter, AtomicBoolean abandoned) {
+        long deadline = System.currentTimeMillis() + exportTimeoutMillis;
+        int page = 0;
+        String pageToken = null;
+        long written = 0;
+        try {
+            while (!abandoned.get()) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new TimeoutException("Export exceeded " + exportTimeoutMillis + " ms");
+                }
+                PatientPageDTO chunk = providerPatientService
+                        .requestPatientPage(providerId, status, page, exportPageSize, "id", pageToken)
+                        .get();
+
+                List<PatientDTO> patients = chunk.getPatients() != null ? chunk.getPatients() : List.of();
+                ByteArrayOutputStream lines = new ByteArrayOutputStream();
+                for (PatientDTO patient : patients) {
+                    lines.writeBytes(objectMapper.writeValueAsBytes(patient));
+                    lines.write('\n');
+                }
+                emitter.send(lines.toByteArray(), MediaType.APPLICATION_NDJSON);
+                written += patients.size();
+
+                if (patients.isEmpty() || (chunk.getNextPageToken() == null && written >= chunk.getTotalElements())) {
+                    log.info("Exported {} patients for provider {}", written, providerId);
+                    emitter.complete();
+                    return;
+                }
+                pageToken = chunk.getNextPageToken();
+                page++;
+            }
+            log.warn("Patient export for provider {} abandoned after {} patients", providerId, written);
+        } catch (JsonProcessingException e) {
+            abortExport(emitter, providerId, written, e);
+        } catch (IOException e) {
+            // the client went away, the container completes the request
+            log.warn("Patient export for provider {} stopped after {} patients: {}", providerId, written, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abortExport(emitter, providerId, written, e);
+        } catch (ExecutionException e) {
+            abortExport(emitter, providerId, written, e.getCause());
+        } catch (TimeoutException | RuntimeException e) {
+            abortExport(emitter, providerId, written, e);
+        }
+    }
+
+    // The status line is already sent, so the failure is reported as the last record of the stream
+    private void abortExport(ResponseBodyEmitter emitter, String providerId, long written, Throwable cause) {
+        log.error("Patient export for provider {} aborted after {} patients: {}", providerId, written, cause.toString());
+        try {
+            Map<String, Object> error = Map.of("error", "Patient export aborted", "exported", written);
+            emitter.send(objectMapper.writeValueAsString(error) + "\n", MediaType.APPLICATION_NDJSON);
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            log.warn("Could not report the aborted export to the client: {}", e.getMessage());
+        }
     }
 
     
@@ -88,10 +291,18 @@ public class ProviderPatientController {
         @ApiResponse(
             responseCode = "403",
             description = "Accès refusé"
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Service patient indisponible ou saturé - réessayer après le délai Retry-After"
+        ),
+        @ApiResponse(
+            responseCode = "504",
+            description = "Le service patient n'a pas répondu à temps"
         )
     })
     @GetMapping("/patients/{patientId}")
-    public ResponseEntity<PatientDTO> getPatient(
+    public CompletableFuture<ResponseEntity<PatientDTO>> getPatient(
             @Parameter(
                 description = "ID unique du patient",
                 required = true,
@@ -102,15 +313,10 @@ public class ProviderPatientController {
 
         String providerId = authentication.getName();
 
-        List<PatientDTO> patients = providerPatientService.getPatients(providerId, "ALL");
-        PatientDTO patient = patients.stream()
-                .filter(p -> p.getId().equals(patientId))
-                .findFirst()
-                .orElse(null);
-
-        return patient != null ?
-                ResponseEntity.ok(patient) :
-                ResponseEntity.notFound().build();
+        return providerPatientService.getPatientAsync(providerId, patientId)
+                .thenApply(patient -> patient
+                        .map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.notFound().build()));
     }
 
     
@@ -121,8 +327,12 @@ public class ProviderPatientController {
     @ApiResponses(value = {
         @ApiResponse(
             responseCode = "200",
-            description = "Demande d'activation envoyée avec succès",
-            content = @Content(schema = @Schema(example = "{\"message\": \"Patient activation request sent successfully\", \"patientId\": \"123\", \"status\": \"PROCESSING\"}"))
+            description = "Demande d'activation acceptée et mise en file (outbox) - suivre sa livraison via GET /patients/updates/{updateId}",
+            content = @Content(schema = @Schema(example = "{\"message\": \"Patient activation request queued\", \"patientId\": \"123\", \"updateId\": \"4f1c2e8a-9b3d-4e6f-a1b2-c3d4e5f60718\", \"status\": \"PENDING\"}"))
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Trop de demandes en attente dans l'outbox (broker indisponible ou relais en retard) - réessayer après le délai Retry-After"
         ),
         @ApiResponse(
             responseCode = "500",
@@ -159,13 +369,18 @@ public class ProviderPatientController {
                 "Approved by provider";
 
         try {
-            providerPatientService.activatePatient(patientId, providerId, reason);
+            String updateId = providerPatientService.activatePatient(patientId, providerId, reason);
 
             return ResponseEntity.ok(Map.of(
-                    "message", "Patient activation request sent successfully",
+                    "message", "Patient activation request queued",
                     "patientId", patientId,
-                    "status", "PROCESSING"
+                    "updateId", updateId,
+                    "status", "PENDING"
             ));
+        } catch (ServiceBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             log.error("Error activating patient {}: {}", patientId, e.getMessage());
             return ResponseEntity.internalServerError()
@@ -181,8 +396,12 @@ public class ProviderPatientController {
     @ApiResponses(value = {
         @ApiResponse(
             responseCode = "200",
-            description = "Demande de désactivation envoyée avec succès",
-            content = @Content(schema = @Schema(example = "{\"message\": \"Patient deactivation request sent successfully\", \"patientId\": \"123\", \"status\": \"PROCESSING\"}"))
+            description = "Demande de désactivation acceptée et mise en file (outbox) - suivre sa livraison via GET /patients/updates/{updateId}",
+            content = @Content(schema = @Schema(example = "{\"message\": \"Patient deactivation request queued\", \"patientId\": \"123\", \"updateId\": \"4f1c2e8a-9b3d-4e6f-a1b2-c3d4e5f60718\", \"status\": \"PENDING\"}"))
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Trop de demandes en attente dans l'outbox (broker indisponible ou relais en retard) - réessayer après le délai Retry-After"
         ),
         @ApiResponse(
             responseCode = "500",
@@ -219,17 +438,136 @@ public class ProviderPatientController {
                 "Deactivated by provider";
 
         try {
-            providerPatientService.deactivatePatient(patientId, providerId, reason);
+            String updateId = providerPatientService.deactivatePatient(patientId, providerId, reason);
 
             return ResponseEntity.ok(Map.of(
-                    "message", "Patient deactivation request sent successfully",
+                    "message", "Patient deactivation request queued",
                     "patientId", patientId,
-                    "status", "PROCESSING"
+                    "updateId", updateId,
+                    "status", "PENDING"
             ));
+        } catch (ServiceBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             log.error("Error deactivating patient {}: {}", patientId, e.getMessage());
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Failed to process deactivation request"));
         }
     }
+
+    
+    @Operation(
+        summary = "Activer ou désactiver plusieurs patients",
+        description = "Envoie en une seule requête les demandes d'activation (ACTIVATE) ou de désactivation (DEACTIVATE) d'une liste de patients (1000 au maximum) et retourne le résultat pour chaque patient."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Demandes mises en file (outbox) - voir le résultat par patient",
+            content = @Content(schema = @Schema(implementation = BulkStatusUpdateResult.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Requête invalide - liste vide, trop de patients ou action inconnue"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Non authentifié"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "Accès refusé"
+        )
+    })
+    @PostMapping("/patients/bulk-status")
+    public ResponseEntity<BulkStatusUpdateResult> bulkUpdateStatus(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "Patients à mettre à jour, action et raison",
+                required = true,
+                content = @Content(schema = @Schema(implementation = BulkStatusUpdateRequest.class))
+            )
+            @Valid @RequestBody BulkStatusUpdateRequest request,
+            @Parameter(hidden = true) Authentication authentication) {
+
+        String providerId = authentication.getName();
+        String reason = request.getReason() != null ?
+                request.getReason() :
+                "ACTIVATE".equalsIgnoreCase(request.getAction()) ? "Approved by provider" : "Deactivated by provider";
+
+        return ResponseEntity.ok(providerPatientService.bulkUpdateStatus(
+                request.getPatientIds(), providerId, request.getAction(), reason));
+    }
+
+    
+    @Operation(
+        summary = "Suivre une demande de changement de statut",
+        description = "Indique, à partir de l'updateId retourné, où en est une demande d'activation ou de désactivation : PENDING (dans l'outbox, pas encore confirmée par le broker, y compris pendant les nouvelles tentatives), CONFIRMED (confirmée par le broker) ou FAILED (refusée ou non routée par le broker trop de fois, abandonnée)."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "État de la demande",
+            content = @Content(schema = @Schema(implementation = PatientUpdateStatusDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Demande inconnue, expirée ou appartenant à un autre fournisseur"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Non authentifié"
+        )
+    })
+    @GetMapping("/patients/updates/{updateId}")
+    public ResponseEntity<PatientUpdateStatusDTO> getUpdateStatus(
+            @Parameter(description = "Identifiant de la demande retourné lors de l'activation ou de la désactivation", required = true)
+            @PathVariable(value = "updateId") String updateId,
+            @Parameter(hidden = true) Authentication authentication) {
+
+        return providerPatientService.getUpdateStatus(updateId, authentication.getName())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Patient reads shed by the admission limit or the circuit breaker, sync or through a failed future
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<Map<String, String>> serviceBusy(ServiceBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    // Bulk requests rejected by bean validation
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<Map<String, String>> invalidRequest(MethodArgumentNotValidException e) {
+        String message = e.getBindingResult().getFieldErrors().stream()
+                .map(FieldError::getDefaultMessage)
+                .findFirst()
+                .orElse("Invalid request");
+        return ResponseEntity.badRequest().body(Map.of("error", message));
+    }
+
+    // Bulk requests the service refuses: missing or too many patients, unknown action
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> invalidArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    // Patient-service did not answer within the sync timeout
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<Map<String, String>> patientServiceTimeout(TimeoutException e) {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body(Map.of("error", "Patient service did not respond in time"));
+    }
+
+    // The request could not be published to patient-service
+    @ExceptionHandler(AmqpException.class)
+    public ResponseEntity<Map<String, String>> brokerUnavailable(AmqpException e) {
+        log.error("Patient request could not be sent: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "Patient service unavailable, retry later"));
+    }
 }
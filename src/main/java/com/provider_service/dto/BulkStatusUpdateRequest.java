@@ -0,0 +1,26 @@
+package com.provider_service.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateRequest {
+    public static final int MAX_PATIENTS = 1000;
+
+    @NotEmpty(message = "patientIds is required")
+    @Size(max = MAX_PATIENTS, message = "At most 1000 patients per request")
+    private List<String> patientIds;
+    
+    @NotBlank(message = "action is required")
+    private String action; // "ACTIVATE", "DEACTIVATE"
+    
+    private String reason;
+}
@@ -0,0 +1,27 @@
+package com.provider_service.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateResult {
+    private int requested;
+    private int accepted;
+    private int rejected;
+    private List<PatientUpdateResult> results;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PatientUpdateResult {
+        private String patientId;
+        private String updateId;
+        private String status; // "PENDING" (queued in the outbox), "REJECTED"
+        private String error;
+    }
+}
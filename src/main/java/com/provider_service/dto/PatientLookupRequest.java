@@ -0,0 +1,14 @@
+package com.provider_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientLookupRequest {
+    private String requestId;
+    private String providerId;
+    private String patientId;
+}
@@ -0,0 +1,13 @@
+package com.provider_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientLookupResponse {
+    private String requestId;
+    private PatientDTO patient; // null when the patient does not exist or is not linked to the provider
+}
@@ -0,0 +1,19 @@
+package com.provider_service.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientPageDTO {
+    private String requestId;
+    private List<PatientDTO> patients;
+    private int page;
+    private int size;
+    private long totalElements;
+    private String nextPageToken; // null on the last page
+}
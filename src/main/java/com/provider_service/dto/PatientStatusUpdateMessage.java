@@ -6,11 +6,13 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class PatientStatusUpdateMessage {
+    private String updateId; // lets patient-service drop redeliveries and providers track confirmation
     private String patientId;
     private String providerId;
     private String newStatus;
@@ -22,6 +24,7 @@ public class PatientStatusUpdateMessage {
     
     public PatientStatusUpdateMessage(String patientId, String providerId, 
                                     String newStatus, String previousStatus) {
+        this.updateId = UUID.randomUUID().toString();
         this.patientId = patientId;
         this.providerId = providerId;
         this.newStatus = newStatus;
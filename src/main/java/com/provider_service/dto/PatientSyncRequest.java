@@ -11,5 +11,16 @@ public class PatientSyncRequest {
     private String requestId;
     private String providerId;
     private String status; // "ALL", "PENDING", "ACTIVE", "INACTIVE"
+    
+    // Paging, only set for paged sync; peers reply with a PatientPageDTO
+    private Integer page;
+    private Integer size;
+    private String sortBy;
+    private String pageToken; // continuation token from the previous page, takes precedence over page
+    
+    public PatientSyncRequest(String requestId, String providerId, String status) {
+        this.requestId = requestId;
+        this.providerId = providerId;
+        this.status = status;
+    }
 }
-
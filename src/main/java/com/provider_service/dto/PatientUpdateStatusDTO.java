@@ -0,0 +1,22 @@
+package com.provider_service.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientUpdateStatusDTO {
+    private String updateId;
+    private String patientId;
+    private String status; // "PENDING" (queued or retrying), "CONFIRMED" (broker ack), "FAILED" (rejected too often, given up)
+    private String error;
+    
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,15 @@
+package com.provider_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProviderCacheInvalidation {
+    private String origin; // instance that published it, which already evicted locally
+    private String providerId;
+    private String email;
+    private Long tokensRevokedUpToMillis; // epoch millisecond, set when the provider logged out
+}
@@ -0,0 +1,28 @@
+package com.provider_service.dto;
+
+import com.provider_service.models.Provider;
+
+/**
+ * Maps providers to the profile representation returned by the auth and
+ * directory endpoints; credentials and account flags are never copied.
+ */
+public final class ProviderProfileMapper {
+
+    private ProviderProfileMapper() {
+    }
+
+    public static ProviderProfileDTO toProfileDTO(Provider provider) {
+        ProviderProfileDTO dto = new ProviderProfileDTO();
+        dto.setProviderID(provider.getId());
+        dto.setEmail(provider.getEmail());
+        dto.setFullName(provider.getFullName());
+        dto.setProfessionalTitle(provider.getProfessionalTitle());
+        dto.setSpecialty(provider.getSpecialty());
+        dto.setSubSpecialties(provider.getSubSpecialties());
+        dto.setStateLicenses(provider.getStateLicenses());
+        dto.setPrimaryClinicName(provider.getPrimaryClinicName());
+        dto.setClinicAddress(provider.getClinicAddress());
+        dto.setContactNumber(provider.getContactNumber());
+        return dto;
+    }
+}
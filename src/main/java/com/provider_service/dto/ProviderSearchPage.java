@@ -0,0 +1,18 @@
+package com.provider_service.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProviderSearchPage {
+    private List<ProviderProfileDTO> providers;
+    private int page;
+    private int size;
+    // pass back as pageToken to seek straight to the next page; null on the last page
+    private String nextPageToken;
+}
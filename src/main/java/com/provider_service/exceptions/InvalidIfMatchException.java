@@ -0,0 +1,12 @@
+package com.provider_service.exceptions;
+
+/**
+ * Thrown when an If-Match header is not a single profile version ETag;
+ * callers should answer 400 with the message.
+ */
+public class InvalidIfMatchException extends RuntimeException {
+
+    public InvalidIfMatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.provider_service.exceptions;
+
+/**
+ * Thrown when a request is shed because a bounded resource is saturated;
+ * callers should answer 503 with a Retry-After hint.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
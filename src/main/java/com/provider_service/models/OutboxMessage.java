@@ -0,0 +1,75 @@
+package com.provider_service.models;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import com.provider_service.dto.PatientStatusUpdateMessage;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A patient status update waiting to be relayed to RabbitMQ. The id is the
+ * update id, so a relayed message and its outbox entry share one key and
+ * patient-service can drop redeliveries. The sequence orders the updates of
+ * one patient; the relay only publishes a patient's oldest unsent update.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "patient_status_outbox")
+@CompoundIndexes({
+    @CompoundIndex(name = "outbox_due", def = "{'status': 1, 'availableAt': 1}"),
+    @CompoundIndex(name = "outbox_patient_order", def = "{'patientId': 1, 'sequence': 1}")
+})
+public class OutboxMessage {
+
+    public static final String PENDING = "PENDING";
+    public static final String IN_FLIGHT = "IN_FLIGHT";
+    public static final String SENT = "SENT";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String providerId;
+
+    private String patientId;
+    private String routingKey;
+    private PatientStatusUpdateMessage payload;
+    // taken from a global counter when the update is enqueued
+    private long sequence;
+
+    private String status;
+    // every failed delivery, drives the backoff
+    private int attempts;
+    // nacks and returns only; a broker that can't be reached never fails an update
+    private int rejections;
+    private String lastError;
+    private String claimId;
+
+    private Instant createdAt;
+    // earliest time the relay may pick the entry up: now for new entries, the
+    // backoff for failed ones, the lease expiry for entries being relayed
+    private Instant availableAt;
+
+    // sent entries are kept for status lookups, then removed by the TTL index
+    @Indexed(expireAfter = "1h")
+    private Instant sentAt;
+
+    public OutboxMessage(String routingKey, PatientStatusUpdateMessage payload) {
+        this.id = payload.getUpdateId();
+        this.providerId = payload.getProviderId();
+        this.patientId = payload.getPatientId();
+        this.routingKey = routingKey;
+        this.payload = payload;
+        this.status = PENDING;
+        this.createdAt = Instant.now();
+        this.availableAt = this.createdAt;
+    }
+}
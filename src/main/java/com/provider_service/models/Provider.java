@@ -5,6 +5,8 @@ import java.util.Collections;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.core.GrantedAuthority;
@@ -16,7 +18,17 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 
 
+// Directory search indexes: equality fields first, then the fullName/_id sort so pages are read in index order.
+// subSpecialties and stateLicenses are arrays and MongoDB can't index two arrays together, hence separate indexes.
 @Document(collection = "providers")
+@CompoundIndexes({
+	@CompoundIndex(name = "directory_specialty_state", def = "{'specialty': 1, 'stateLicenses': 1, 'fullName': 1, '_id': 1}"),
+	@CompoundIndex(name = "directory_specialty", def = "{'specialty': 1, 'fullName': 1, '_id': 1}"),
+	@CompoundIndex(name = "directory_sub_specialty", def = "{'subSpecialties': 1, 'fullName': 1, '_id': 1}"),
+	@CompoundIndex(name = "directory_state", def = "{'stateLicenses': 1, 'fullName': 1, '_id': 1}"),
+	@CompoundIndex(name = "directory_clinic", def = "{'primaryClinicName': 1, 'fullName': 1, '_id': 1}"),
+	@CompoundIndex(name = "directory_name", def = "{'fullName': 1, '_id': 1}")
+})
 public class Provider implements UserDetails{
 	    @Id
 	    private String providerID;
@@ -46,6 +58,9 @@ public class Provider implements UserDetails{
 	    private String clinicAddress;
 	    private String contactNumber;
 	    
+	    // Bumped by every profile update; compared against If-Match for optimistic concurrency
+	    private long profileVersion;
+	    
 	    public Provider() {
 			super();
 		}
@@ -200,6 +215,14 @@ public class Provider implements UserDetails{
 		public void setContactNumber(String contactNumber) {
 			this.contactNumber = contactNumber;
 		}
+
+		public long getProfileVersion() {
+			return profileVersion;
+		}
+
+		public void setProfileVersion(long profileVersion) {
+			this.profileVersion = profileVersion;
+		}
 		
 		// Helper method to check if profile is complete
 		public boolean isProfileComplete() {
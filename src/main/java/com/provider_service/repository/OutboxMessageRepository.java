@@ -0,0 +1,11 @@
+package com.provider_service.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.provider_service.models.OutboxMessage;
+
+public interface OutboxMessageRepository extends MongoRepository<OutboxMessage, String> {
+    Optional<OutboxMessage> findByIdAndProviderId(String id, String providerId);
+}
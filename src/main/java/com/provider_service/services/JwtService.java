@@ -4,28 +4,117 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.patient_service.models.Patient;
 import com.provider_service.models.Provider;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class JwtService {
+	    // iat is in seconds; revocation needs to order a token against a logout in the same second
+	    private static final String ISSUED_AT_MILLIS = "iatMs";
+
 	 @Value("${jwt.secret:mySecretKey123456789012345678901234567890}")
 	    private String secretKey;
 
 	    @Value("${jwt.expiration:86400000}") // 24 hours
 	    private long jwtExpiration;
 
+	    @Value("${jwt.cache.max-size:10000}")
+	    private int cacheMaxSize;
+
+	    // false verifies every token, e.g. to measure what the cache saves
+	    @Value("${jwt.cache.enabled:true}")
+	    private boolean cacheEnabled;
+
+	    @Autowired
+	    private MeterRegistry meterRegistry;
+
+	    // Built once: the HMAC key and parser are immutable and thread-safe
+	    private Key signInKey;
+	    private JwtParser parser;
+
+	    private Timer parseTimer;
+	    private Counter cacheHits;
+	    private Counter cacheMisses;
+
+	    // Tokens whose signature was already verified, each expiring with the token itself
+	    private Cache<String, Claims> verifiedTokens;
+
+	    @PostConstruct
+	    void init() {
+	        signInKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+	        parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+	        parseTimer = meterRegistry.timer("jwt.parse");
+	        cacheHits = meterRegistry.counter("jwt.cache.requests", "result", "hit");
+	        cacheMisses = meterRegistry.counter("jwt.cache.requests", "result", "miss");
+	        verifiedTokens = Caffeine.newBuilder()
+	                .maximumSize(cacheMaxSize)
+	                .expireAfter(new Expiry<String, Claims>() {
+	                    @Override
+	                    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+	                        long validFor = claims.getExpiration() != null
+	                                ? claims.getExpiration().getTime() - System.currentTimeMillis()
+	                                : jwtExpiration;
+	                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, validFor));
+	                    }
+
+	                    @Override
+	                    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+	                        return currentDuration;
+	                    }
+
+	                    @Override
+	                    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+	                        return currentDuration;
+	                    }
+	                })
+	                .build();
+	    }
+
+	    /**
+	     * Verifies the token once and returns its claims; repeated calls with the
+	     * same token are served from the cache until it expires.
+	     *
+	     * @throws JwtException if the token is malformed, tampered with or expired
+	     */
+	    public Claims validateToken(String token) {
+	        if (!cacheEnabled) {
+	            return parseTimer.record(() -> parser.parseClaimsJws(token).getBody());
+	        }
+	        // an expired token is never returned by the cache, it goes through the parser and is rejected there
+	        Claims claims = verifiedTokens.getIfPresent(token);
+	        if (claims != null) {
+	            cacheHits.increment();
+	            return claims;
+	        }
+	        cacheMisses.increment();
+	        // signature check and claims decoding; failures are timed too
+	        claims = parseTimer.record(() -> parser.parseClaimsJws(token).getBody());
+	        verifiedTokens.put(token, claims);
+	        return claims;
+	    }
+
 	    public String extractUsername(String token) {
 	        return extractClaim(token, Claims::getSubject);
 	    }
@@ -36,7 +125,7 @@ public class JwtService {
 	    }
 
 	    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-	        final Claims claims = extractAllClaims(token);
+	        final Claims claims = validateToken(token);
 	        return claimsResolver.apply(claims);
 	    }
 
@@ -47,8 +136,11 @@ public class JwtService {
 	    // ✅ UPDATED: Add role to extra claims
 	    public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
 	        // Add role to claims
-	        if (userDetails instanceof Provider) 
+	        if (userDetails instanceof Provider) {
 	            extraClaims.put("role", ((Provider) userDetails).getRole().name());
+	            // lets the filter authenticate from the token alone
+	            extraClaims.put("providerId", ((Provider) userDetails).getId());
+	        }
 	        
 	        return buildToken(extraClaims, userDetails, jwtExpiration);
 	    }
@@ -58,40 +150,30 @@ public class JwtService {
 	            UserDetails userDetails,
 	            long expiration
 	    ) {
+	        long now = System.currentTimeMillis();
+	        extraClaims.put(ISSUED_AT_MILLIS, now);
 	        return Jwts
 	                .builder()
 	                .setClaims(extraClaims)
 	                .setSubject(userDetails.getUsername())
-	                .setIssuedAt(new Date(System.currentTimeMillis()))
-	                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-	                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+	                .setIssuedAt(new Date(now))
+	                .setExpiration(new Date(now + expiration))
+	                .signWith(signInKey, SignatureAlgorithm.HS256)
 	                .compact();
 	    }
 
-	    public boolean isTokenValid(String token, UserDetails userDetails) {
-	        final String username = extractUsername(token);
-	        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-	    }
-
-	    private boolean isTokenExpired(String token) {
-	        return extractExpiration(token).before(new Date());
-	    }
-
-	    private Date extractExpiration(String token) {
-	        return extractClaim(token, Claims::getExpiration);
-	    }
-
-	    private Claims extractAllClaims(String token) {
-	        return Jwts
-	                .parserBuilder()
-	                .setSigningKey(getSignInKey())
-	                .build()
-	                .parseClaimsJws(token)
-	                .getBody();
+	    // Tokens issued before the iatMs claim only have second precision
+	    public long issuedAtMillis(Claims claims) {
+	        Number issuedAt = claims.get(ISSUED_AT_MILLIS, Number.class);
+	        if (issuedAt != null) {
+	            return issuedAt.longValue();
+	        }
+	        return claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0;
 	    }
 
-	    private Key getSignInKey() {
-	        byte[] keyBytes = secretKey.getBytes();
-	        return Keys.hmacShaKeyFor(keyBytes);
+	    // Signature and expiry are enforced by validateToken
+	    public boolean isTokenValid(String token, UserDetails userDetails) {
+	        final String username = extractUsername(token);
+	        return username.equals(userDetails.getUsername());
 	    }
 }
@@ -0,0 +1,194 @@
+package com.provider_service.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.provider_service.dto.PatientDTO;
+import com.provider_service.dto.PatientStatusUpdateMessage;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Provider-side copy of each provider's patient panel, indexed by patient id
+ * and account status. Panels are warmed from sync responses, patched by
+ * patient status events and local status changes, and treated as a miss once
+ * older than the TTL so they get reconciled with patient-service.
+ *
+ * Every change takes a number from a global sequence and stamps it on the
+ * provider's entry, even when no panel is cached. A sync captures the sequence
+ * before it is sent, and its reply is not cached if the provider changed since:
+ * that reply may predate the change and would overwrite it.
+ */
+@Component
+@Slf4j
+public class PatientReadModel {
+
+    private final long ttlMillis;
+    private final Cache<String, Entry> entries;
+    private final AtomicLong changeSequence = new AtomicLong();
+
+    public PatientReadModel(
+            @Value("${patient.cache.max-providers:10000}") int maxProviders,
+            @Value("${patient.cache.ttl-ms:300000}") long ttlMillis,
+            @Value("${patient.sync.timeout-ms:3000}") long syncTimeoutMillis) {
+        this.ttlMillis = ttlMillis;
+        // patched panels are rewritten, so expiry only reclaims memory and freshness is judged by loadedAt;
+        // change stamps must outlive any sync that was in flight when they were applied
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxProviders)
+                .expireAfterWrite(Duration.ofMillis(Math.max(ttlMillis, syncTimeoutMillis)))
+                .build();
+    }
+
+    public Optional<List<PatientDTO>> findPatients(String providerId, String status) {
+        Panel panel = freshPanel(providerId);
+        if (panel == null) {
+            return Optional.empty();
+        }
+        if ("ALL".equalsIgnoreCase(status)) {
+            return Optional.of(panel.all());
+        }
+        return Optional.of(panel.byStatus().getOrDefault(status.toUpperCase(), List.of()));
+    }
+
+    public Optional<PatientDTO> findPatient(String providerId, String patientId) {
+        Panel panel = freshPanel(providerId);
+        return panel == null ? Optional.empty() : Optional.ofNullable(panel.byId().get(patientId));
+    }
+
+    // Taken before a sync request is sent and handed back to load() with its reply
+    public long syncToken() {
+        return changeSequence.get();
+    }
+
+    /**
+     * Caches a synced panel unless the provider's patients changed after the
+     * sync was sent. Returns whether the panel was cached.
+     */
+    public boolean load(String providerId, List<PatientDTO> patients, long syncToken) {
+        boolean[] loaded = { false };
+        entries.asMap().compute(providerId, (id, entry) -> {
+            if (entry != null && entry.changedAt() > syncToken) {
+                return entry;
+            }
+            loaded[0] = true;
+            return new Entry(Panel.of(patients, System.currentTimeMillis()), entry == null ? 0 : entry.changedAt());
+        });
+        if (loaded[0]) {
+            log.debug("Cached {} patients for provider {}", patients.size(), providerId);
+        } else {
+            log.debug("Dropped stale sync of provider {}, its patients changed after the request", providerId);
+        }
+        return loaded[0];
+    }
+
+    // Status events from patient-service and status changes queued by this service
+    public void applyStatusChange(PatientStatusUpdateMessage change) {
+        long changedAt = changeSequence.incrementAndGet();
+        entries.asMap().compute(change.getProviderId(), (providerId, entry) ->
+                new Entry(entry == null ? null : patch(entry.panel(), change), changedAt));
+    }
+
+    // Drops the panel; syncs already in flight are not cached either
+    public void evict(String providerId) {
+        long changedAt = changeSequence.incrementAndGet();
+        entries.put(providerId, new Entry(null, changedAt));
+    }
+
+    public long size() {
+        return entries.estimatedSize();
+    }
+
+    private Panel freshPanel(String providerId) {
+        Entry entry = entries.getIfPresent(providerId);
+        if (entry == null || entry.panel() == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.panel().loadedAt() > ttlMillis) {
+            return null;
+        }
+        return entry.panel();
+    }
+
+    private static Panel patch(Panel panel, PatientStatusUpdateMessage change) {
+        if (panel == null) {
+            return null;
+        }
+        PatientDTO current = panel.byId().get(change.getPatientId());
+        if (current == null) {
+            // unknown patient: drop the panel so the next read reconciles it
+            return null;
+        }
+        Map<String, PatientDTO> updated = new LinkedHashMap<>(panel.byId());
+        updated.put(current.getId(), current.toBuilder()
+                .accountStatus(change.getNewStatus())
+                .updatedAt(change.getTimestamp() != null ? change.getTimestamp() : current.getUpdatedAt())
+                .build());
+        return Panel.of(updated.values(), panel.loadedAt());
+    }
+
+    // panel is null while only the change stamp is kept
+    private record Entry(Panel panel, long changedAt) {
+    }
+
+    // Immutable snapshot, replaced as a whole on every change
+    private static final class Panel {
+        private final List<PatientDTO> all;
+        private final Map<String, PatientDTO> byId;
+        private final Map<String, List<PatientDTO>> byStatus;
+        private final long loadedAt;
+
+        private Panel(List<PatientDTO> all, Map<String, PatientDTO> byId,
+                      Map<String, List<PatientDTO>> byStatus, long loadedAt) {
+            this.all = all;
+            this.byId = byId;
+            this.byStatus = byStatus;
+            this.loadedAt = loadedAt;
+        }
+
+        static Panel of(Iterable<PatientDTO> patients, long loadedAt) {
+            List<PatientDTO> all = new ArrayList<>();
+            Map<String, PatientDTO> byId = new LinkedHashMap<>();
+            Map<String, List<PatientDTO>> byStatus = new HashMap<>();
+            for (PatientDTO patient : patients) {
+                all.add(patient);
+                byId.put(patient.getId(), patient);
+                if (patient.getAccountStatus() != null) {
+                    byStatus.computeIfAbsent(patient.getAccountStatus().toUpperCase(), k -> new ArrayList<>())
+                            .add(patient);
+                }
+            }
+            byStatus.replaceAll((status, list) -> Collections.unmodifiableList(list));
+            return new Panel(Collections.unmodifiableList(all), Collections.unmodifiableMap(byId),
+                    Collections.unmodifiableMap(byStatus), loadedAt);
+        }
+
+        List<PatientDTO> all() {
+            return all;
+        }
+
+        Map<String, PatientDTO> byId() {
+            return byId;
+        }
+
+        Map<String, List<PatientDTO>> byStatus() {
+            return byStatus;
+        }
+
+        long loadedAt() {
+            return loadedAt;
+        }
+    }
+}
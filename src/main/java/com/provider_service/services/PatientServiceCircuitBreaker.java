@@ -0,0 +1,232 @@
+package com.provider_service.services;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.provider_service.exceptions.ServiceBusyException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker and adaptive timeout for round trips to patient-service.
+ *
+ * While closed, each call gets a timeout derived from the recent round-trip
+ * latency percentile of its request type (times a safety multiplier, capped by
+ * patient.sync.timeout-ms). Lookups, pages and panel syncs have their own
+ * latency samples, so fast lookups don't shrink the timeout of a full panel
+ * sync. Failures share one window: they all mean patient-service is unwell.
+ * Once the failure rate over the last calls crosses
+ * the threshold the breaker opens and calls are rejected with a
+ * ServiceBusyException without touching the broker. After the open period a
+ * single probe is let through with the full timeout; its outcome closes or
+ * re-opens the breaker.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PatientServiceCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final int LATENCY_SAMPLES = 256;
+    private static final int MIN_LATENCY_SAMPLES = 32;
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final MeterRegistry meterRegistry;
+
+    // Upper bound, and the timeout used until enough latencies were observed
+    @Value("${patient.sync.timeout-ms:3000}")
+    private long maxTimeoutMillis;
+
+    @Value("${patient.sync.min-timeout-ms:250}")
+    private long minTimeoutMillis;
+
+    @Value("${patient.sync.timeout-percentile:0.99}")
+    private double timeoutPercentile;
+
+    @Value("${patient.sync.timeout-multiplier:2.0}")
+    private double timeoutMultiplier;
+
+    @Value("${patient.breaker.window:50}")
+    private int window;
+
+    @Value("${patient.breaker.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${patient.breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${patient.breaker.open-ms:5000}")
+    private long openMillis;
+
+    private volatile State state = State.CLOSED;
+    // While not closed: earliest time the next probe may be sent
+    private final AtomicLong nextProbeAt = new AtomicLong();
+    private final Map<String, LatencyWindow> latencyWindows = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private boolean[] outcomes;
+    private long outcomeCount;
+    private int failures;
+
+    @PostConstruct
+    void init() {
+        outcomes = new boolean[window];
+        meterRegistry.gauge("patient.breaker.state", this, b -> b.state.ordinal());
+    }
+
+    /**
+     * Admits a call of the given request type (lookup, page, panel) or rejects
+     * it while the breaker is open. The permit carries the timeout to wait for
+     * the reply with and must be completed exactly once.
+     */
+    public Permit acquire(String requestType) {
+        LatencyWindow latencyWindow = latencyWindows.computeIfAbsent(requestType, this::newLatencyWindow);
+        if (state == State.CLOSED) {
+            return new Permit(latencyWindow, latencyWindow.timeoutMillis, false);
+        }
+        long now = System.currentTimeMillis();
+        long probeAt = nextProbeAt.get();
+        // a lost probe only blocks the next one for one timeout
+        if (now >= probeAt && nextProbeAt.compareAndSet(probeAt, now + maxTimeoutMillis)) {
+            synchronized (this) {
+                if (state == State.CLOSED) {
+                    return new Permit(latencyWindow, latencyWindow.timeoutMillis, false);
+                }
+                state = State.HALF_OPEN;
+            }
+            log.info("Probing patient-service with a {} request after {} ms open", requestType, openMillis);
+            return new Permit(latencyWindow, maxTimeoutMillis, true);
+        }
+        meterRegistry.counter("patient.breaker.rejected").increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(nextProbeAt.get() - now + 999));
+        throw new ServiceBusyException("Patient service unavailable, retry later", retryAfterSeconds);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    // The timeout a call of this request type gets while the breaker is closed
+    public long getTimeoutMillis(String requestType) {
+        LatencyWindow latencyWindow = latencyWindows.get(requestType);
+        return latencyWindow == null ? maxTimeoutMillis : latencyWindow.timeoutMillis;
+    }
+
+    private LatencyWindow newLatencyWindow(String requestType) {
+        LatencyWindow latencyWindow = new LatencyWindow(maxTimeoutMillis);
+        meterRegistry.gauge("patient.sync.timeout", Tags.of("request", requestType), latencyWindow, w -> w.timeoutMillis);
+        return latencyWindow;
+    }
+
+    private synchronized void onComplete(Permit permit, boolean success, long elapsedNanos) {
+        if (permit.probe) {
+            if (success) {
+                close();
+            } else {
+                open("probe failed");
+            }
+            return;
+        }
+        // results of calls sent before the breaker opened say nothing about now
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (success) {
+            recordLatency(permit.latencyWindow, elapsedNanos);
+        }
+
+        int slot = (int) (outcomeCount++ % window);
+        if (outcomeCount > window && outcomes[slot]) {
+            failures--;
+        }
+        outcomes[slot] = !success;
+        if (!success) {
+            failures++;
+        }
+        int calls = (int) Math.min(outcomeCount, window);
+        if (calls >= minimumCalls && failures >= failureRateThreshold * calls) {
+            open(failures + " of the last " + calls + " calls failed");
+        }
+    }
+
+    private void open(String reason) {
+        // set before the state so no caller sees OPEN with a stale probe time
+        nextProbeAt.set(System.currentTimeMillis() + openMillis);
+        state = State.OPEN;
+        meterRegistry.counter("patient.breaker.transitions", "to", "open").increment();
+        log.warn("Patient-service circuit breaker opened: {}", reason);
+    }
+
+    // Latencies are re-learned after an outage, starting from the full timeout
+    private void close() {
+        outcomeCount = 0;
+        failures = 0;
+        latencyWindows.values().forEach(latencyWindow -> latencyWindow.reset(maxTimeoutMillis));
+        state = State.CLOSED;
+        meterRegistry.counter("patient.breaker.transitions", "to", "closed").increment();
+        log.info("Patient-service circuit breaker closed");
+    }
+
+    private void recordLatency(LatencyWindow latencyWindow, long elapsedNanos) {
+        long count = ++latencyWindow.count;
+        latencyWindow.latencies[(int) ((count - 1) % LATENCY_SAMPLES)] = elapsedNanos;
+        if (count >= MIN_LATENCY_SAMPLES && count % RECOMPUTE_EVERY == 0) {
+            long[] sorted = Arrays.copyOf(latencyWindow.latencies, (int) Math.min(count, LATENCY_SAMPLES));
+            Arrays.sort(sorted);
+            long percentile = sorted[Math.min(sorted.length - 1, (int) Math.ceil(timeoutPercentile * sorted.length) - 1)];
+            long adaptive = (long) Math.ceil(percentile * timeoutMultiplier / 1e6);
+            latencyWindow.timeoutMillis = Math.max(minTimeoutMillis, Math.min(maxTimeoutMillis, adaptive));
+        }
+    }
+
+    // Latency samples and the timeout derived from them, for one request type
+    private static final class LatencyWindow {
+
+        // Guarded by the breaker
+        private final long[] latencies = new long[LATENCY_SAMPLES];
+        private long count;
+        private volatile long timeoutMillis;
+
+        private LatencyWindow(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        private void reset(long timeoutMillis) {
+            this.count = 0;
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    public final class Permit {
+
+        private final LatencyWindow latencyWindow;
+        private final long timeoutMillis;
+        private final boolean probe;
+        private final long startNanos = System.nanoTime();
+
+        private Permit(LatencyWindow latencyWindow, long timeoutMillis, boolean probe) {
+            this.latencyWindow = latencyWindow;
+            this.timeoutMillis = timeoutMillis;
+            this.probe = probe;
+        }
+
+        public long timeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void complete(Throwable error) {
+            onComplete(this, error == null, System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.provider_service.services;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.Document;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.provider_service.config.RabbitConfig;
+import com.provider_service.dto.PatientStatusUpdateMessage;
+import com.provider_service.dto.PatientUpdateStatusDTO;
+import com.provider_service.exceptions.ServiceBusyException;
+import com.provider_service.models.OutboxMessage;
+import com.provider_service.repository.OutboxMessageRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Outbox for patient status updates. Requests only insert into Mongo; the
+ * relay drains due entries in batches over one channel, waits for the
+ * publisher confirms and marks each entry sent or schedules a retry.
+ * Delivery is at-least-once: an entry whose confirm is lost is published
+ * again once its lease expires, and patient-service de-duplicates by update id.
+ *
+ * Entries are claimed with a lease before publishing, so several instances
+ * can relay the same collection without publishing an entry twice at once.
+ * Updates of one patient are relayed in the order they were enqueued.
+ *
+ * Only nacks and returns count as rejections and can fail an update; while
+ * the broker is unreachable or confirms don't arrive, updates are retried
+ * with a capped exponential backoff for as long as it takes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PatientStatusOutbox {
+
+    private static final String SEQUENCE_COLLECTION = "outbox_sequences";
+    private static final List<String> UNSENT = List.of(OutboxMessage.PENDING, OutboxMessage.IN_FLIGHT);
+
+    private final OutboxMessageRepository outboxRepository;
+    private final MongoTemplate mongoTemplate;
+    private final RabbitTemplate rabbitTemplate;
+    private final PatientReadModel patientReadModel;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${patient.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${patient.outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMillis;
+
+    @Value("${patient.outbox.max-rejections:10}")
+    private int maxRejections;
+
+    @Value("${patient.outbox.retry-backoff-ms:1000}")
+    private long retryBackoffMillis;
+
+    @Value("${patient.outbox.max-retry-backoff-ms:60000}")
+    private long maxRetryBackoffMillis;
+
+    @Value("${patient.outbox.max-backlog:100000}")
+    private long maxBacklog;
+
+    // Refreshed by every relay pass so the request path never counts documents
+    private final AtomicLong backlog = new AtomicLong();
+
+    @PostConstruct
+    void registerGauges() {
+        meterRegistry.gauge("patient.outbox.backlog", backlog);
+    }
+
+    /**
+     * Appends the update to the outbox; it is published by the next relay pass.
+     * Sheds the update when the relay is too far behind, e.g. while the broker is down.
+     */
+    public void enqueue(PatientStatusUpdateMessage message) {
+        checkBacklog();
+        OutboxMessage entry = new OutboxMessage(RabbitConfig.PATIENT_STATUS_ROUTING_KEY, message);
+        entry.setSequence(reserveSequences(1));
+        outboxRepository.insert(entry);
+        backlog.incrementAndGet();
+    }
+
+    // One insertMany for the whole list
+    public void enqueueAll(List<PatientStatusUpdateMessage> messages) {
+        checkBacklog();
+        long sequence = reserveSequences(messages.size());
+        List<OutboxMessage> entries = new ArrayList<>(messages.size());
+        for (PatientStatusUpdateMessage message : messages) {
+            OutboxMessage entry = new OutboxMessage(RabbitConfig.PATIENT_STATUS_ROUTING_KEY, message);
+            entry.setSequence(sequence++);
+            entries.add(entry);
+        }
+        outboxRepository.insert(entries);
+        backlog.addAndGet(messages.size());
+    }
+
+    public Optional<PatientUpdateStatusDTO> find(String updateId, String providerId) {
+        return outboxRepository.findByIdAndProviderId(updateId, providerId).map(PatientStatusOutbox::toStatus);
+    }
+
+    @Scheduled(fixedDelayString = "${patient.outbox.relay-interval-ms:200}")
+    public void relay() {
+        List<OutboxMessage> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                publish(batch);
+            }
+        } while (batch.size() == batchSize && !Thread.currentThread().isInterrupted());
+
+        backlog.set(mongoTemplate.count(
+                new Query(Criteria.where("status").in(UNSENT)),
+                OutboxMessage.class));
+    }
+
+    private void checkBacklog() {
+        if (backlog.get() >= maxBacklog) {
+            throw new ServiceBusyException("Too many patient status updates waiting to be relayed", 5);
+        }
+    }
+
+    // Reserves count consecutive sequence numbers with one findAndModify and returns the first
+    private long reserveSequences(int count) {
+        Document counter = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(OutboxMessage.class.getSimpleName())),
+                new Update().inc("value", (long) count),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Document.class, SEQUENCE_COLLECTION);
+        return ((Number) counter.get("value")).longValue() - count + 1;
+    }
+
+    /**
+     * Claims due entries with a lease. Only a patient's oldest unsent entry is
+     * claimed, so a deactivation never overtakes the activation before it while
+     * that one is retried or in flight. Due entries waiting behind an unsent one
+     * are pushed back so they don't keep the head of the due range.
+     */
+    private List<OutboxMessage> claimBatch() {
+        Instant now = Instant.now();
+        Query due = new Query(Criteria.where("status").in(UNSENT).and("availableAt").lte(now))
+                .with(Sort.by("availableAt"))
+                .limit(batchSize);
+        due.fields().include("_id").include("patientId");
+        List<OutboxMessage> candidates = mongoTemplate.find(due, OutboxMessage.class);
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, OutboxMessage> oldest = oldestUnsent(
+                candidates.stream().map(OutboxMessage::getPatientId).distinct().toList());
+        List<String> ids = new ArrayList<>(candidates.size());
+        List<OutboxMessage> waiting = new ArrayList<>();
+        for (OutboxMessage candidate : candidates) {
+            OutboxMessage head = oldest.get(candidate.getPatientId());
+            if (head == null || head.getId().equals(candidate.getId())) {
+                ids.add(candidate.getId());
+            } else {
+                waiting.add(candidate);
+            }
+        }
+        if (!waiting.isEmpty()) {
+            deferBehind(waiting, oldest, now);
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // the due condition is checked again so an entry claimed by another instance meanwhile is skipped
+        String claimId = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("_id").in(ids)
+                        .and("status").in(UNSENT)
+                        .and("availableAt").lte(now)),
+                new Update()
+                        .set("status", OutboxMessage.IN_FLIGHT)
+                        .set("claimId", claimId)
+                        .set("availableAt", now.plusMillis(2 * confirmTimeoutMillis)),
+                OutboxMessage.class);
+        return mongoTemplate.find(
+                new Query(Criteria.where("_id").in(ids).and("claimId").is(claimId)).with(Sort.by("sequence")),
+                OutboxMessage.class);
+    }
+
+    private Map<String, OutboxMessage> oldestUnsent(List<String> patientIds) {
+        Query unsent = new Query(Criteria.where("patientId").in(patientIds).and("status").in(UNSENT))
+                .with(Sort.by("patientId", "sequence"));
+        unsent.fields().include("_id").include("patientId").include("status").include("availableAt");
+        Map<String, OutboxMessage> oldest = new HashMap<>();
+        mongoTemplate.find(unsent, OutboxMessage.class).forEach(entry -> oldest.putIfAbsent(entry.getPatientId(), entry));
+        return oldest;
+    }
+
+    // Until the update ahead is due again when it is waiting for a retry, one backoff step otherwise
+    private void deferBehind(List<OutboxMessage> waiting, Map<String, OutboxMessage> oldest, Instant now) {
+        BulkOperations deferrals = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OutboxMessage.class);
+        for (OutboxMessage entry : waiting) {
+            OutboxMessage head = oldest.get(entry.getPatientId());
+            Instant retryAt = OutboxMessage.PENDING.equals(head.getStatus()) && head.getAvailableAt().isAfter(now)
+                    ? head.getAvailableAt()
+                    : now.plusMillis(retryBackoffMillis);
+            deferrals.updateOne(
+                    new Query(Criteria.where("_id").is(entry.getId()).and("status").in(UNSENT).and("availableAt").lte(now)),
+                    new Update().set("availableAt", retryAt));
+        }
+        deferrals.execute();
+        log.debug("Deferred {} patient status updates queued behind an unsent update of the same patient", waiting.size());
+    }
+
+    private void publish(List<OutboxMessage> batch) {
+        List<CorrelationData> confirms;
+        try {
+            confirms = rabbitTemplate.invoke(operations -> {
+                List<CorrelationData> sent = new ArrayList<>(batch.size());
+                for (OutboxMessage entry : batch) {
+                    CorrelationData correlationData = new CorrelationData(entry.getId());
+                    try {
+                        operations.convertAndSend(RabbitConfig.PATIENT_EXCHANGE, entry.getRoutingKey(),
+                                entry.getPayload(), correlationData);
+                    } catch (AmqpException e) {
+                        correlationData.getFuture().completeExceptionally(e);
+                    }
+                    sent.add(correlationData);
+                }
+                return sent;
+            });
+        } catch (AmqpException e) {
+            log.warn("Could not relay {} patient status updates: {}", batch.size(), e.getMessage());
+            batch.forEach(entry -> retryLater(entry, new Failure(e.getMessage(), false)));
+            return;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMillis);
+        List<String> confirmed = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxMessage entry = batch.get(i);
+            Failure failure;
+            try {
+                failure = awaitConfirm(confirms.get(i), deadline);
+            } catch (InterruptedException e) {
+                // unsettled entries keep their lease and are relayed again once it expires
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (failure == null) {
+                confirmed.add(entry.getId());
+            } else {
+                retryLater(entry, failure);
+            }
+        }
+
+        if (!confirmed.isEmpty()) {
+            mongoTemplate.updateMulti(
+                    new Query(Criteria.where("_id").in(confirmed).and("status").is(OutboxMessage.IN_FLIGHT)),
+                    new Update().set("status", OutboxMessage.SENT).set("sentAt", Instant.now()).unset("claimId"),
+                    OutboxMessage.class);
+            meterRegistry.counter("rabbitmq.published", "exchange", RabbitConfig.PATIENT_EXCHANGE,
+                    "routing_key", RabbitConfig.PATIENT_STATUS_ROUTING_KEY).increment(confirmed.size());
+            meterRegistry.counter("patient.outbox.relayed", "outcome", "confirmed").increment(confirmed.size());
+        }
+        log.debug("Relayed {} of {} patient status updates", confirmed.size(), batch.size());
+    }
+
+    private Failure awaitConfirm(CorrelationData correlationData, long deadlineNanos) throws InterruptedException {
+        try {
+            CorrelationData.Confirm confirm = correlationData.getFuture()
+                    .get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (correlationData.getReturned() != null) {
+                return new Failure("Returned: " + correlationData.getReturned().getReplyText(), true);
+            }
+            return confirm.isAck() ? null : new Failure("Nacked: " + confirm.getReason(), true);
+        } catch (ExecutionException e) {
+            // the send itself failed, the broker never saw the message
+            return new Failure(e.getCause().getMessage(), false);
+        } catch (TimeoutException e) {
+            return new Failure("No publisher confirm within " + confirmTimeoutMillis + " ms", false);
+        }
+    }
+
+    private void retryLater(OutboxMessage entry, Failure failure) {
+        int attempts = entry.getAttempts() + 1;
+        int rejections = entry.getRejections() + (failure.rejected() ? 1 : 0);
+        boolean giveUp = rejections >= maxRejections;
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(entry.getId()).and("claimId").is(entry.getClaimId())),
+                new Update()
+                        .set("status", giveUp ? OutboxMessage.FAILED : OutboxMessage.PENDING)
+                        .set("attempts", attempts)
+                        .set("rejections", rejections)
+                        .set("lastError", failure.error())
+                        .set("availableAt", Instant.now().plusMillis(backoffMillis(attempts)))
+                        .unset("claimId"),
+                OutboxMessage.class);
+        String outcome = giveUp ? "failed" : failure.rejected() ? "rejected" : "undelivered";
+        meterRegistry.counter("patient.outbox.relayed", "outcome", outcome).increment();
+        if (giveUp) {
+            log.error("Giving up on patient status update {} after {} rejections: {}", entry.getId(), rejections, failure.error());
+            // the cached panel already shows the update, reload it from patient-service
+            patientReadModel.evict(entry.getProviderId());
+        } else {
+            log.warn("Patient status update {} not delivered (attempt {}, {} rejections): {}",
+                    entry.getId(), attempts, rejections, failure.error());
+        }
+    }
+
+    // retry-backoff-ms doubled on every failed attempt, capped at max-retry-backoff-ms
+    private long backoffMillis(int attempts) {
+        return Math.min(maxRetryBackoffMillis, retryBackoffMillis << Math.min(attempts - 1, 30));
+    }
+
+    private static PatientUpdateStatusDTO toStatus(OutboxMessage entry) {
+        String status = switch (entry.getStatus()) {
+            case OutboxMessage.SENT -> "CONFIRMED";
+            case OutboxMessage.FAILED -> "FAILED";
+            default -> "PENDING";
+        };
+        Instant updatedAt = entry.getSentAt() != null ? entry.getSentAt() : entry.getCreatedAt();
+        return new PatientUpdateStatusDTO(entry.getId(), entry.getPatientId(), status, entry.getLastError(),
+                LocalDateTime.ofInstant(updatedAt, ZoneId.systemDefault()));
+    }
+
+    // rejected: nacked or returned by the broker, as opposed to never reaching it
+    private record Failure(String error, boolean rejected) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.provider_service.services;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-flight request/reply exchanges over RabbitMQ, keyed by request id.
+ * Each caller gets its own future; replies complete the matching entry and
+ * entries are removed as soon as they complete, fail or time out.
+ */
+@Slf4j
+public class PendingReplies<T> {
+
+    private final Map<String, PendingReply<T>> pending = new ConcurrentHashMap<>();
+
+    public CompletableFuture<T> register(String requestId, long timeoutMillis) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        pending.put(requestId, new PendingReply<>(future, deadline));
+        future.whenComplete((reply, error) -> pending.remove(requestId));
+        future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    public boolean complete(String requestId, T reply) {
+        PendingReply<T> entry = pending.remove(requestId);
+        if (entry == null) {
+            log.debug("Dropping reply for unknown or expired request {}", requestId);
+            return false;
+        }
+        return entry.future().complete(reply);
+    }
+
+    public void fail(String requestId, Throwable error) {
+        PendingReply<T> entry = pending.remove(requestId);
+        if (entry != null) {
+            entry.future().completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Removes entries whose deadline passed but which were never completed,
+     * so a lost timer can't leak waiters.
+     */
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int purged = 0;
+        for (Map.Entry<String, PendingReply<T>> e : pending.entrySet()) {
+            if (e.getValue().deadline() < now && pending.remove(e.getKey(), e.getValue())) {
+                e.getValue().future().completeExceptionally(
+                        new TimeoutException("No reply for request " + e.getKey()));
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    private record PendingReply<T>(CompletableFuture<T> future, long deadline) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.provider_service.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.provider_service.models.Provider;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Provider directory search over the compound indexes declared on Provider.
+ * Filters are equality matches on indexed fields and results come back in
+ * fullName/_id order, so MongoDB walks one index range and stops after a
+ * page. Only profile fields are fetched, never the password hash.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProviderDirectoryService {
+
+    private static final Sort DIRECTORY_ORDER = Sort.by(Sort.Order.asc("fullName"), Sort.Order.asc("_id"));
+    private static final String TOKEN_SEPARATOR = "\u0000";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${provider.directory.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Searches providers with a completed profile. With a page token the query
+     * seeks past the previous page's last entry instead of skipping, so deep
+     * pages cost the same as the first one; page is then only echoed back.
+     *
+     * @throws IllegalArgumentException if the page token is malformed
+     */
+    public Slice<Provider> search(String specialty, String subSpecialty, String state, String clinic,
+            int page, int size, String pageToken) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+
+        List<Criteria> filters = new ArrayList<>();
+        if (StringUtils.hasText(specialty)) {
+            filters.add(Criteria.where("specialty").is(specialty));
+        }
+        if (StringUtils.hasText(subSpecialty)) {
+            filters.add(Criteria.where("subSpecialties").is(subSpecialty));
+        }
+        if (StringUtils.hasText(state)) {
+            filters.add(Criteria.where("stateLicenses").is(state.toUpperCase()));
+        }
+        if (StringUtils.hasText(clinic)) {
+            filters.add(Criteria.where("primaryClinicName").is(clinic));
+        }
+        if (StringUtils.hasText(pageToken)) {
+            String[] after = decodePageToken(pageToken);
+            filters.add(new Criteria().orOperator(
+                    Criteria.where("fullName").gt(after[0]),
+                    new Criteria().andOperator(Criteria.where("fullName").is(after[0]), Criteria.where("_id").gt(after[1]))));
+        } else {
+            // providers without a name haven't completed their profile and aren't listed
+            filters.add(Criteria.where("fullName").gt(""));
+        }
+
+        Query query = new Query(new Criteria().andOperator(filters))
+                .with(DIRECTORY_ORDER)
+                .limit(pageSize + 1);
+        if (!StringUtils.hasText(pageToken) && page > 0) {
+            query.skip((long) page * pageSize);
+        }
+        query.fields().include("email", "fullName", "professionalTitle", "specialty", "subSpecialties",
+                "stateLicenses", "primaryClinicName", "clinicAddress", "contactNumber");
+
+        // one extra row tells whether there is a next page without a count query
+        List<Provider> providers = mongoTemplate.find(query, Provider.class);
+        boolean hasNext = providers.size() > pageSize;
+        if (hasNext) {
+            providers = providers.subList(0, pageSize);
+        }
+        log.debug("Directory search returned {} providers (page {}, more: {})", providers.size(), page, hasNext);
+        return new SliceImpl<>(providers, PageRequest.of(Math.max(page, 0), pageSize, DIRECTORY_ORDER), hasNext);
+    }
+
+    public static String pageToken(Provider last) {
+        String key = last.getFullName() + TOKEN_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodePageToken(String pageToken) {
+        String key = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+        String[] parts = key.split(TOKEN_SEPARATOR, 2);
+        if (parts.length != 2 || parts[1].isEmpty()) {
+            throw new IllegalArgumentException("Invalid page token");
+        }
+        return parts;
+    }
+}
@@ -3,21 +3,43 @@ package com.provider_service.services;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessagePostProcessor;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
 import com.provider_service.config.RabbitConfig;
+import com.provider_service.dto.BulkStatusUpdateRequest;
+import com.provider_service.dto.BulkStatusUpdateResult;
 import com.provider_service.dto.PatientDTO;
+import com.provider_service.dto.PatientLookupRequest;
+import com.provider_service.dto.PatientLookupResponse;
+import com.provider_service.dto.PatientPageDTO;
 import com.provider_service.dto.PatientStatusUpdateMessage;
 import com.provider_service.dto.PatientSyncRequest;
+import com.provider_service.dto.PatientUpdateStatusDTO;
+import com.provider_service.exceptions.ServiceBusyException;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
@@ -25,92 +47,437 @@ import java.util.concurrent.TimeUnit;
 public class ProviderPatientService {
 
 	 private final RabbitTemplate rabbitTemplate;
-	    
-	    // Blocking queue to wait for response
-	    private final BlockingQueue<List<PatientDTO>> responseQueue = new ArrayBlockingQueue<>(1);
+	 private final PatientReadModel patientReadModel;
+	 private final PatientStatusOutbox patientStatusOutbox;
+	 private final PatientServiceCircuitBreaker circuitBreaker;
+	 private final MeterRegistry meterRegistry;
+
+	    // Outstanding sync requests, keyed by requestId
+	    private final PendingReplies<List<PatientDTO>> pendingSyncReplies = new PendingReplies<>();
+	    private final PendingReplies<PatientLookupResponse> pendingLookupReplies = new PendingReplies<>();
+	    private final PendingReplies<PatientPageDTO> pendingPageReplies = new PendingReplies<>();
+
+	    // Panel syncs currently waiting on patient-service, shared by concurrent callers
+	    private final Map<String, CompletableFuture<List<PatientDTO>>> inFlightPanelSyncs = new ConcurrentHashMap<>();
+
+	    // Round trips of every kind still waiting on patient-service, capped by maxOutstanding
+	    private final AtomicInteger outstandingRoundTrips = new AtomicInteger();
+
+	    @Value("${patient.sync.max-outstanding:2000}")
+	    private int maxOutstanding;
+
+	    @Value("${patient.sync.max-page-size:500}")
+	    private int maxPageSize;
 
-	    @RabbitListener(queues = RabbitConfig.PATIENT_SYNC_RESPONSE_QUEUE)
-	    public void handlePatientResponse(List<PatientDTO> patients) {
-	        log.info("Received {} patients from patient service", patients.size());
+	    // This instance's exclusive reply queues, see RabbitConfig
+	    @Value("#{patientSyncReplyQueue.name}")
+	    private String syncReplyQueue;
+
+	    @Value("#{patientSyncPageReplyQueue.name}")
+	    private String pageReplyQueue;
+
+	    @Value("#{patientLookupReplyQueue.name}")
+	    private String lookupReplyQueue;
+
+	    @PostConstruct
+	    void registerGauges() {
+	        meterRegistry.gauge("patient.sync.pending", Tags.of("request", "panel"), pendingSyncReplies, PendingReplies::size);
+	        meterRegistry.gauge("patient.sync.pending", Tags.of("request", "page"), pendingPageReplies, PendingReplies::size);
+	        meterRegistry.gauge("patient.sync.pending", Tags.of("request", "lookup"), pendingLookupReplies, PendingReplies::size);
+	        meterRegistry.gauge("patient.sync.in.flight.panels", inFlightPanelSyncs, Map::size);
+	        meterRegistry.gauge("patient.sync.outstanding", outstandingRoundTrips);
+	    }
+
+	    // The shared durable queues still serve peers that ignore replyTo. Not batched: a reply
+	    // has a caller waiting on it, so it is handed over as soon as it arrives
+	    @RabbitListener(queues = { RabbitConfig.PATIENT_SYNC_RESPONSE_QUEUE, "#{patientSyncReplyQueue.name}" })
+	    public void handlePatientResponse(List<PatientDTO> patients,
+	            @Header(name = AmqpHeaders.CORRELATION_ID, required = false) String correlationId) {
 	        try {
-	            responseQueue.clear();
-	            responseQueue.offer(patients);
+	            log.info("Received {} patients from patient service for request {}", patients.size(), correlationId);
+	            meterRegistry.summary("patient.sync.patients", "request", "panel").record(patients.size());
+	            // a panel carries no provider id, so an uncorrelated one could belong to any
+	            // provider's request, possibly on another instance: never hand it to a waiter
+	            if (correlationId == null) {
+	                log.warn("Dropping patient response without correlation id");
+	                return;
+	            }
+	            pendingSyncReplies.complete(correlationId, patients);
 	        } catch (Exception e) {
 	            log.error("Error handling patient response: {}", e.getMessage());
 	        }
 	    }
 
+	    @RabbitListener(queues = { RabbitConfig.PATIENT_SYNC_PAGE_RESPONSE_QUEUE, "#{patientSyncPageReplyQueue.name}" })
+	    public void handlePatientPageResponse(PatientPageDTO page,
+	            @Header(name = AmqpHeaders.CORRELATION_ID, required = false) String correlationId) {
+	        String requestId = correlationId != null ? correlationId : page.getRequestId();
+	        log.debug("Received patient page {} for request {}", page.getPage(), requestId);
+	        if (page.getPatients() != null) {
+	            meterRegistry.summary("patient.sync.patients", "request", "page").record(page.getPatients().size());
+	        }
+	        if (requestId == null) {
+	            log.warn("Dropping patient page without request id");
+	            return;
+	        }
+	        pendingPageReplies.complete(requestId, page);
+	    }
+
+	    @RabbitListener(queues = { RabbitConfig.PATIENT_LOOKUP_RESPONSE_QUEUE, "#{patientLookupReplyQueue.name}" })
+	    public void handlePatientLookupResponse(PatientLookupResponse response,
+	            @Header(name = AmqpHeaders.CORRELATION_ID, required = false) String correlationId) {
+	        String requestId = correlationId != null ? correlationId : response.getRequestId();
+	        log.debug("Received patient lookup response for request {}", requestId);
+	        if (requestId == null) {
+	            log.warn("Dropping patient lookup response without request id");
+	            return;
+	        }
+	        pendingLookupReplies.complete(requestId, response);
+	    }
+
+	    @RabbitListener(queues = "#{patientStatusEventsQueue.name}",
+	            containerFactory = RabbitConfig.BATCH_LISTENER_CONTAINER_FACTORY)
+	    public void handlePatientStatusChanges(List<PatientStatusUpdateMessage> events) {
+	        for (PatientStatusUpdateMessage event : events) {
+	            // one bad event must not fail, and redeliver, the whole batch
+	            try {
+	                log.debug("Patient {} of provider {} is now {}", event.getPatientId(), event.getProviderId(), event.getNewStatus());
+	                patientReadModel.applyStatusChange(event);
+	            } catch (RuntimeException e) {
+	                log.error("Dropping patient status event {}: {}", event.getUpdateId(), e.getMessage());
+	                if (event.getProviderId() != null) {
+	                    patientReadModel.evict(event.getProviderId());
+	                }
+	            }
+	        }
+	    }
+
+	    @Scheduled(fixedDelayString = "${patient.sync.purge-interval-ms:60000}")
+	    public void purgeExpiredSyncRequests() {
+	        int purged = pendingSyncReplies.purgeExpired() + pendingLookupReplies.purgeExpired()
+	                + pendingPageReplies.purgeExpired();
+	        if (purged > 0) {
+	            log.warn("Purged {} orphaned patient sync requests", purged);
+	        }
+	    }
+
+	    // Blocking variant; a timeout or broker failure surfaces as a CompletionException
 	    public List<PatientDTO> getPatients(String providerId, String status) {
+	        return getPatientsAsync(providerId, status).join();
+	    }
+
+	    // Served from the read model when warm, otherwise completed by handlePatientResponse.
+	    // Fails with a TimeoutException when patient-service does not answer, so an outage is never
+	    // mistaken for an empty panel; throws ServiceBusyException straight away while the breaker is open
+	    public CompletableFuture<List<PatientDTO>> getPatientsAsync(String providerId, String status) {
 	        log.info("Getting patients for provider: {} with status: {}", providerId, status);
 	        
-	        responseQueue.clear();
+	        Optional<List<PatientDTO>> cached = patientReadModel.findPatients(providerId, status);
+	        if (cached.isPresent()) {
+	            return CompletableFuture.completedFuture(cached.get());
+	        }
+	        
+	        return coalescedSyncPanel(providerId)
+	                .thenApply(allPatients -> filterByStatus(allPatients, status))
+	                .whenComplete((patients, e) -> {
+	                    if (e != null) {
+	                        log.warn("No patient data received for provider {}: {}", providerId, e.getMessage());
+	                    }
+	                });
+	    }
+
+	    // Empty only when patient-service answered that the provider has no such patient;
+	    // fails with a TimeoutException when it does not answer
+	    public CompletableFuture<Optional<PatientDTO>> getPatientAsync(String providerId, String patientId) {
+	        Optional<PatientDTO> cached = patientReadModel.findPatient(providerId, patientId);
+	        if (cached.isPresent()) {
+	            return CompletableFuture.completedFuture(cached);
+	        }
 	        
 	        String requestId = UUID.randomUUID().toString();
-	        PatientSyncRequest request = new PatientSyncRequest(requestId, providerId, status);
+	        PatientLookupRequest request = new PatientLookupRequest(requestId, providerId, patientId);
+	        PatientServiceCircuitBreaker.Permit permit = admit("lookup");
+	        CompletableFuture<PatientLookupResponse> reply = pendingLookupReplies.register(requestId, permit.timeoutMillis());
+	        timeRoundTrip(reply, "lookup", permit);
 	        
-	        rabbitTemplate.convertAndSend(
-	                RabbitConfig.PATIENT_EXCHANGE,
-	                RabbitConfig.PATIENT_SYNC_ROUTING_KEY,
-	                request
-	        );
+	        try {
+	            rabbitTemplate.convertAndSend(
+	                    RabbitConfig.PATIENT_EXCHANGE,
+	                    RabbitConfig.PATIENT_LOOKUP_ROUTING_KEY,
+	                    request,
+	                    replyTo(requestId, lookupReplyQueue)
+	            );
+	        } catch (AmqpException e) {
+	            pendingLookupReplies.fail(requestId, e);
+	            throw e;
+	        }
+	        countPublish(RabbitConfig.PATIENT_LOOKUP_ROUTING_KEY);
 	        
-	        log.info("Sent patient sync request, waiting for response...");
+	        log.info("Sent patient lookup request {} for patient {}", requestId, patientId);
+	        
+	        return reply
+	                .thenApply(response -> Optional.ofNullable(response.getPatient()))
+	                .whenComplete((patient, e) -> {
+	                    if (e != null) {
+	                        log.warn("No lookup response received for patient {}: {}", patientId, e.getMessage());
+	                    }
+	                });
+	    }
+
+	    // Status filtering, sorting and slicing happen in patient-service; only one page crosses the broker.
+	    // Fails like requestPatientPage, so an outage is never mistaken for an empty page
+	    public CompletableFuture<PatientPageDTO> getPatientPageAsync(String providerId, String status,
+	            int page, int size, String sortBy, String pageToken) {
+	        return requestPatientPage(providerId, status, page, size, sortBy, pageToken)
+	                .whenComplete((patientPage, e) -> {
+	                    if (e != null) {
+	                        log.warn("No patient page received for provider {}: {}", providerId, e.getMessage());
+	                    }
+	                });
+	    }
+
+	    // Fails with a TimeoutException when patient-service does not answer
+	    public CompletableFuture<PatientPageDTO> requestPatientPage(String providerId, String status,
+	            int page, int size, String sortBy, String pageToken) {
+	        int pageSize = pageSize(size);
+	        log.info("Getting page {} (size {}) of patients for provider: {} with status: {}",
+	                page, pageSize, providerId, status);
+	        
+	        String requestId = UUID.randomUUID().toString();
+	        PatientSyncRequest request = new PatientSyncRequest(requestId, providerId, status,
+	                Math.max(page, 0), pageSize, sortBy, pageToken);
+	        PatientServiceCircuitBreaker.Permit permit = admit("page");
+	        CompletableFuture<PatientPageDTO> reply = pendingPageReplies.register(requestId, permit.timeoutMillis());
+	        timeRoundTrip(reply, "page", permit);
 	        
 	        try {
-	            List<PatientDTO> allPatients = responseQueue.poll(3, TimeUnit.SECONDS);
-	            
-	            if (allPatients == null) {
-	                log.warn("No response received within timeout");
-	                return List.of();
-	            }
-	            
+	            rabbitTemplate.convertAndSend(
+	                    RabbitConfig.PATIENT_EXCHANGE,
+	                    RabbitConfig.PATIENT_SYNC_ROUTING_KEY,
+	                    request,
+	                    replyTo(requestId, pageReplyQueue)
+	            );
+	        } catch (AmqpException e) {
+	            pendingPageReplies.fail(requestId, e);
+	            throw e;
+	        }
+	        countPublish(RabbitConfig.PATIENT_SYNC_ROUTING_KEY);
+	        
+	        return reply;
+	    }
+
+	    private int pageSize(int size) {
+	        return Math.max(1, Math.min(size, maxPageSize));
+	    }
+
+	    /**
+	     * Single-flight wrapper around syncPanel: while a provider's panel is being
+	     * fetched, every other caller for that provider joins the same round trip
+	     * instead of sending its own request. The entry is removed before the shared
+	     * future completes, so later callers hit the freshly loaded read model.
+	     */
+	    private CompletableFuture<List<PatientDTO>> coalescedSyncPanel(String providerId) {
+	        CompletableFuture<List<PatientDTO>> shared = new CompletableFuture<>();
+	        CompletableFuture<List<PatientDTO>> inFlight = inFlightPanelSyncs.putIfAbsent(providerId, shared);
+	        if (inFlight != null) {
+	            log.debug("Joining in-flight patient sync for provider {}", providerId);
+	            meterRegistry.counter("patient.sync.coalesced").increment();
+	            return inFlight;
+	        }
+	        
+	        try {
+	            syncPanel(providerId).whenComplete((patients, error) -> {
+	                inFlightPanelSyncs.remove(providerId, shared);
+	                if (error != null) {
+	                    shared.completeExceptionally(error);
+	                } else {
+	                    shared.complete(patients);
+	                }
+	            });
+	        } catch (RuntimeException e) {
+	            inFlightPanelSyncs.remove(providerId, shared);
+	            shared.completeExceptionally(e);
+	            throw e;
+	        }
+	        return shared;
+	    }
+
+	    // Fetches the provider's whole panel so the read model can answer every status afterwards
+	    private CompletableFuture<List<PatientDTO>> syncPanel(String providerId) {
+	        String requestId = UUID.randomUUID().toString();
+	        PatientSyncRequest request = new PatientSyncRequest(requestId, providerId, "ALL");
+	        PatientServiceCircuitBreaker.Permit permit = admit("panel");
+	        // changes applied from here on are newer than the reply may be
+	        long syncToken = patientReadModel.syncToken();
+	        CompletableFuture<List<PatientDTO>> reply = pendingSyncReplies.register(requestId, permit.timeoutMillis());
+	        timeRoundTrip(reply, "panel", permit);
+	        
+	        try {
+	            rabbitTemplate.convertAndSend(
+	                    RabbitConfig.PATIENT_EXCHANGE,
+	                    RabbitConfig.PATIENT_SYNC_ROUTING_KEY,
+	                    request,
+	                    replyTo(requestId, syncReplyQueue)
+	            );
+	        } catch (AmqpException e) {
+	            pendingSyncReplies.fail(requestId, e);
+	            throw e;
+	        }
+	        countPublish(RabbitConfig.PATIENT_SYNC_ROUTING_KEY);
+	        
+	        log.info("Sent patient sync request {}, waiting for response...", requestId);
+	        
+	        return reply.thenApply(allPatients -> {
 	            log.info("Retrieved {} patients", allPatients.size());
-	            
-	            if ("ALL".equalsIgnoreCase(status)) {
-	                return allPatients;
-	            }
-	            
-	            return allPatients.stream()
-	                    .filter(p -> status.equalsIgnoreCase(p.getAccountStatus()))
-	                    .toList();
-	                    
-	        } catch (InterruptedException e) {
-	            Thread.currentThread().interrupt();
-	            log.error("Interrupted while waiting for patient data");
-	            return List.of();
+	            patientReadModel.load(providerId, allPatients, syncToken);
+	            return allPatients;
+	        });
+	    }
+
+	    /**
+	     * Admission for a round trip: sheds it when too many are already waiting on
+	     * patient-service, then asks the circuit breaker. The slot is released by
+	     * timeRoundTrip once the reply completes.
+	     */
+	    private PatientServiceCircuitBreaker.Permit admit(String request) {
+	        if (outstandingRoundTrips.incrementAndGet() > maxOutstanding) {
+	            outstandingRoundTrips.decrementAndGet();
+	            meterRegistry.counter("patient.sync.shed").increment();
+	            throw new ServiceBusyException("Too many patient requests in flight, retry later", 1);
+	        }
+	        try {
+	            return circuitBreaker.acquire(request);
+	        } catch (ServiceBusyException e) {
+	            outstandingRoundTrips.decrementAndGet();
+	            throw e;
+	        }
+	    }
+
+	    // Timeouts show up as outcome=timeout, so the timer's count doubles as the timeout counter
+	    private void timeRoundTrip(CompletableFuture<?> reply, String request, PatientServiceCircuitBreaker.Permit permit) {
+	        Timer.Sample sample = Timer.start(meterRegistry);
+	        reply.whenComplete((result, error) -> {
+	            outstandingRoundTrips.decrementAndGet();
+	            permit.complete(error);
+	            String outcome = error == null ? "success" : error instanceof TimeoutException ? "timeout" : "error";
+	            sample.stop(meterRegistry.timer("patient.sync.round.trip", "request", request, "outcome", outcome));
+	        });
+	    }
+
+	    private static MessagePostProcessor replyTo(String requestId, String replyQueue) {
+	        return message -> {
+	            message.getMessageProperties().setCorrelationId(requestId);
+	            message.getMessageProperties().setReplyTo(replyQueue);
+	            message.getMessageProperties().setHeader(RabbitConfig.ACCEPT_CONTENT_TYPE_HEADER, RabbitConfig.ACCEPTED_CONTENT_TYPES);
+	            return message;
+	        };
+	    }
+
+	    private void countPublish(String routingKey) {
+	        meterRegistry.counter("rabbitmq.published", "exchange", RabbitConfig.PATIENT_EXCHANGE, "routing_key", routingKey).increment();
+	    }
+
+	    // Applied to every sync response; public so PatientFilterBenchmark times this exact filter
+	    public static List<PatientDTO> filterByStatus(List<PatientDTO> patients, String status) {
+	        if ("ALL".equalsIgnoreCase(status)) {
+	            return patients;
 	        }
+	        
+	        return patients.stream()
+	                .filter(p -> status.equalsIgnoreCase(p.getAccountStatus()))
+	                .toList();
 	    }
 
-	    public void activatePatient(String patientId, String providerId, String reason) {
+	    // Returns the update id; the update is published by the PatientStatusOutbox relay and applied
+	    // to the cached panel straight away (the outbox evicts the panel if it gives up on the update)
+	    public String activatePatient(String patientId, String providerId, String reason) {
 	        log.info("Provider {} activating patient {}", providerId, patientId);
 	        
 	        PatientStatusUpdateMessage message = new PatientStatusUpdateMessage(
 	                patientId, providerId, "ACTIVE", "PENDING");
 	        message.setReason(reason);
 	        
-	        rabbitTemplate.convertAndSend(
-	                RabbitConfig.PATIENT_EXCHANGE,
-	                RabbitConfig.PATIENT_STATUS_ROUTING_KEY,
-	                message
-	        );
+	        patientStatusOutbox.enqueue(message);
+	        patientReadModel.applyStatusChange(message);
 	        
-	        log.info("Sent activation request for patient {}", patientId);
+	        log.info("Queued activation request {} for patient {}", message.getUpdateId(), patientId);
+	        return message.getUpdateId();
 	    }
 
-	    public void deactivatePatient(String patientId, String providerId, String reason) {
+	    public String deactivatePatient(String patientId, String providerId, String reason) {
 	        log.info("Provider {} deactivating patient {}", providerId, patientId);
 	        
 	        PatientStatusUpdateMessage message = new PatientStatusUpdateMessage(
 	                patientId, providerId, "INACTIVE", "ACTIVE");
 	        message.setReason(reason);
 	        
-	        rabbitTemplate.convertAndSend(
-	                RabbitConfig.PATIENT_EXCHANGE,
-	                RabbitConfig.PATIENT_STATUS_ROUTING_KEY,
-	                message
-	        );
+	        patientStatusOutbox.enqueue(message);
+	        patientReadModel.applyStatusChange(message);
+	        
+	        log.info("Queued deactivation request {} for patient {}", message.getUpdateId(), patientId);
+	        return message.getUpdateId();
+	    }
+
+	    public Optional<PatientUpdateStatusDTO> getUpdateStatus(String updateId, String providerId) {
+	        return patientStatusOutbox.find(updateId, providerId);
+	    }
+
+	    // All updates are written to the outbox with one insert instead of one write per HTTP call
+	    public BulkStatusUpdateResult bulkUpdateStatus(List<String> patientIds, String providerId,
+	            String action, String reason) {
+	        // checked here as well as by bean validation, so no caller can queue an unbounded batch
+	        if (patientIds == null || patientIds.isEmpty()) {
+	            throw new IllegalArgumentException("patientIds is required");
+	        }
+	        if (patientIds.size() > BulkStatusUpdateRequest.MAX_PATIENTS) {
+	            throw new IllegalArgumentException("At most " + BulkStatusUpdateRequest.MAX_PATIENTS + " patients per request");
+	        }
+	        String newStatus;
+	        String previousStatus;
+	        if ("ACTIVATE".equalsIgnoreCase(action)) {
+	            newStatus = "ACTIVE";
+	            previousStatus = "PENDING";
+	        } else if ("DEACTIVATE".equalsIgnoreCase(action)) {
+	            newStatus = "INACTIVE";
+	            previousStatus = "ACTIVE";
+	        } else {
+	            throw new IllegalArgumentException("Unknown action: " + action);
+	        }
+	        
+	        List<String> distinctIds = patientIds.stream().distinct().toList();
+	        log.info("Provider {} bulk {} of {} patients", providerId, action, distinctIds.size());
+	        
+	        List<BulkStatusUpdateResult.PatientUpdateResult> results = new ArrayList<>(distinctIds.size());
+	        List<PatientStatusUpdateMessage> messages = new ArrayList<>(distinctIds.size());
+	        for (String patientId : distinctIds) {
+	            if (patientId == null || patientId.isBlank()) {
+	                results.add(new BulkStatusUpdateResult.PatientUpdateResult(patientId, null, "REJECTED", "Blank patient id"));
+	                continue;
+	            }
+	            PatientStatusUpdateMessage message = new PatientStatusUpdateMessage(
+	                    patientId, providerId, newStatus, previousStatus);
+	            message.setReason(reason);
+	            messages.add(message);
+	        }
+	        
+	        String error = null;
+	        if (!messages.isEmpty()) {
+	            try {
+	                patientStatusOutbox.enqueueAll(messages);
+	                messages.forEach(patientReadModel::applyStatusChange);
+	            } catch (DataAccessException | ServiceBusyException e) {
+	                log.error("Error queueing {} status updates: {}", messages.size(), e.getMessage());
+	                error = e.getMessage();
+	            }
+	        }
+	        for (PatientStatusUpdateMessage message : messages) {
+	            results.add(new BulkStatusUpdateResult.PatientUpdateResult(message.getPatientId(), message.getUpdateId(),
+	                    error == null ? "PENDING" : "REJECTED", error));
+	        }
 	        
-	        log.info("Sent deactivation request for patient {}", patientId);
+	        int accepted = (int) results.stream().filter(r -> "PENDING".equals(r.getStatus())).count();
+	        log.info("Queued {} of {} bulk status updates", accepted, results.size());
+	        return new BulkStatusUpdateResult(results.size(), accepted, results.size() - accepted, results);
 	    }
     
 }
\ No newline at end of file
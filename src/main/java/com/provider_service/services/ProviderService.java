@@ -1,27 +1,117 @@
 package com.provider_service.services;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.provider_service.config.RabbitConfig;
 import com.provider_service.dto.ProfileCompletionRequest;
+import com.provider_service.dto.ProviderCacheInvalidation;
 import com.provider_service.models.Provider;
 import com.provider_service.repository.ProviderRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
 @Service
-public class ProviderService implements UserDetailsService{
+@Slf4j
+public class ProviderService implements UserDetailsService, UserDetailsPasswordService{
 	@Autowired
 	private ProviderRepository providerRepository ;
 	
+	@Autowired
+	private MongoTemplate mongoTemplate;
+	
 	@Autowired
 	private PasswordEncoder passwordEncoder;
 	
+	@Autowired
+	private RabbitTemplate rabbitTemplate;
+	
+	@Autowired
+	private TokenRevocationService tokenRevocationService;
+	
+	@Autowired
+	private MeterRegistry meterRegistry;
+	
+	@Value("${provider.cache.max-size:10000}")
+	private long cacheMaxSize;
+	
+	@Value("${provider.cache.ttl-ms:300000}")
+	private long cacheTtlMillis;
+	
+	// Tags our own invalidation broadcasts so we don't evict twice
+	private final String instanceId = UUID.randomUUID().toString();
+	
+	private Cache<String, Provider> providersByEmail;
+	private Cache<String, Provider> providersById;
+	
+	@PostConstruct
+	void initCaches() {
+	    providersByEmail = Caffeine.newBuilder()
+	            .maximumSize(cacheMaxSize)
+	            .expireAfterWrite(Duration.ofMillis(cacheTtlMillis))
+	            .recordStats()
+	            .build();
+	    providersById = Caffeine.newBuilder()
+	            .maximumSize(cacheMaxSize)
+	            .expireAfterWrite(Duration.ofMillis(cacheTtlMillis))
+	            .recordStats()
+	            .build();
+	    CaffeineCacheMetrics.monitor(meterRegistry, providersByEmail, "providersByEmail");
+	    CaffeineCacheMetrics.monitor(meterRegistry, providersById, "providersById");
+	}
+	
 	@Override
 	public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-	    return providerRepository.findByEmail(email)
-	            .orElseThrow(() -> new UsernameNotFoundException("Provider not found with email: " + email));
+	    Provider provider = cachedByEmail(email);
+	    if (provider == null) {
+	        throw new UsernameNotFoundException("Provider not found with email: " + email);
+	    }
+	    return provider;
+	}
+
+	// Called by the authentication provider after a login whose stored hash used an older BCrypt cost
+	@Override
+	// Only the hash is written, so a profile update racing with the login is not overwritten
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+	    Provider savedProvider = mongoTemplate.findAndModify(
+	            new Query(Criteria.where("email").is(user.getUsername())),
+	            new Update().set("password", newPassword),
+	            FindAndModifyOptions.options().returnNew(true),
+	            Provider.class);
+	    if (savedProvider == null) {
+	        throw new UsernameNotFoundException("Provider not found with email: " + user.getUsername());
+	    }
+	    invalidate(savedProvider.getId(), savedProvider.getEmail(), null);
+	    log.info("Rehashed password of provider {}", savedProvider.getId());
+	    return savedProvider;
 	}
 
 	public Provider registerProvider(String email, String password) {
@@ -36,29 +126,165 @@ public class ProviderService implements UserDetailsService{
 	    return providerRepository.save(provider);
 	}
 	
-	// Complete provider profile (provider fills this)
+	// Complete provider profile (provider fills this): every field is replaced, unsent ones become null
     public Provider completeProviderProfile(String providerId, ProfileCompletionRequest request) {
-        Provider provider = providerRepository.findById(providerId)
-            .orElseThrow(() -> new RuntimeException("Provider not found with ID: " + providerId));
-
-        // Update provider information
-        provider.setFullName(request.getFullName());
-        provider.setProfessionalTitle(request.getProfessionalTitle());
-        provider.setSpecialty(request.getSpecialty());
-        provider.setSubSpecialties(request.getSubSpecialties());
-        provider.setStateLicenses(request.getStateLicenses());
-        provider.setPrimaryClinicName(request.getPrimaryClinicName());
-        provider.setClinicAddress(request.getClinicAddress());
-        provider.setContactNumber(request.getContactNumber());
-
-        Provider savedProvider = providerRepository.save(provider);
-
-        return savedProvider;
+        return completeProviderProfile(providerId, request, null);
+    }
+
+    public Provider completeProviderProfile(String providerId, ProfileCompletionRequest request, Long expectedVersion) {
+        return updateProfile(providerId, profileUpdate(request, false), expectedVersion);
+    }
+
+    // Partial update: only the fields present in the request are written
+    public Provider patchProviderProfile(String providerId, ProfileCompletionRequest request, Long expectedVersion) {
+        Update update = profileUpdate(request, true);
+        if (update.getUpdateObject().isEmpty()) {
+            throw new IllegalArgumentException("No profile fields to update");
+        }
+        return updateProfile(providerId, update, expectedVersion);
+    }
+
+    /**
+     * Applies the update with a single findAndModify: the $set and the version
+     * bump happen atomically in Mongo and the projected profile comes back in
+     * the same round trip, so concurrent edits of different fields don't
+     * overwrite each other. With an expected version the write only applies if
+     * nobody changed the profile since that version was read.
+     *
+     * @throws OptimisticLockingFailureException if the profile version moved on
+     */
+    private Provider updateProfile(String providerId, Update update, Long expectedVersion) {
+        Criteria criteria = Criteria.where("_id").is(providerId);
+        if (expectedVersion != null) {
+            // providers created before versioning have no field yet, which counts as version 0
+            criteria = expectedVersion == 0
+                    ? criteria.and("profileVersion").in(0L, null)
+                    : criteria.and("profileVersion").is(expectedVersion);
+        }
+        Query query = new Query(criteria);
+        query.fields().include("email", "fullName", "professionalTitle", "specialty", "subSpecialties",
+                "stateLicenses", "primaryClinicName", "clinicAddress", "contactNumber", "profileVersion");
+        update.inc("profileVersion", 1);
+
+        Provider updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Provider.class);
+        if (updated == null) {
+            if (expectedVersion != null && mongoTemplate.exists(new Query(Criteria.where("_id").is(providerId)), Provider.class)) {
+                throw new OptimisticLockingFailureException(
+                        "Profile of provider " + providerId + " was modified since version " + expectedVersion);
+            }
+            throw new RuntimeException("Provider not found with ID: " + providerId);
+        }
+        invalidate(updated.getId(), updated.getEmail(), null);
+        return updated;
+    }
+
+    private static Update profileUpdate(ProfileCompletionRequest request, boolean partial) {
+        Update update = new Update();
+        setField(update, "fullName", request.getFullName(), partial);
+        setField(update, "professionalTitle", request.getProfessionalTitle(), partial);
+        setField(update, "specialty", request.getSpecialty(), partial);
+        setField(update, "subSpecialties", request.getSubSpecialties(), partial);
+        setField(update, "stateLicenses", normalizeStateLicenses(request.getStateLicenses()), partial);
+        setField(update, "primaryClinicName", request.getPrimaryClinicName(), partial);
+        setField(update, "clinicAddress", request.getClinicAddress(), partial);
+        setField(update, "contactNumber", request.getContactNumber(), partial);
+        return update;
+    }
+
+    private static void setField(Update update, String field, Object value, boolean partial) {
+        if (value != null || !partial) {
+            update.set(field, value);
+        }
+    }
+
+    // Stored uppercase so the directory's exact-match state filter finds "ca" as well as "CA"
+    private static List<String> normalizeStateLicenses(List<String> stateLicenses) {
+        if (stateLicenses == null) {
+            return null;
+        }
+        return stateLicenses.stream()
+                .filter(Objects::nonNull)
+                .map(state -> state.trim().toUpperCase())
+                .toList();
     }
 
 	public Provider findByEmail(String email) {
-	    return providerRepository.findByEmail(email)
-	            .orElseThrow(() -> new RuntimeException("Provider not found with email: " + email));
+	    Provider provider = cachedByEmail(email);
+	    if (provider == null) {
+	        throw new RuntimeException("Provider not found with email: " + email);
+	    }
+	    return provider;
+	}
+	
+	public Provider findById(String providerId) {
+	    Provider provider = providersById.get(providerId,
+	            id -> mongoLookupTimer("id").record(() -> providerRepository.findById(id).orElse(null)));
+	    if (provider == null) {
+	        throw new RuntimeException("Provider not found with ID: " + providerId);
+	    }
+	    return provider;
+	}
+	
+	// Revokes the provider's tokens on every instance
+	public void revokeTokens(String email) {
+	    long cutoff = tokenRevocationService.revokeTokens(email);
+	    invalidate(null, email, cutoff);
+	}
+	
+	@RabbitListener(queues = "#{providerCacheInvalidationQueue.name}")
+	public void handleCacheInvalidation(ProviderCacheInvalidation invalidation) {
+	    if (instanceId.equals(invalidation.getOrigin())) {
+	        return;
+	    }
+	    evictLocally(invalidation.getProviderId(), invalidation.getEmail());
+	    if (invalidation.getTokensRevokedUpToMillis() != null && invalidation.getEmail() != null) {
+	        tokenRevocationService.revokeTokensUpTo(invalidation.getEmail(), invalidation.getTokensRevokedUpToMillis());
+	    }
+	}
+	
+	public CacheStats emailCacheStats() {
+	    return providersByEmail.stats();
+	}
+	
+	public CacheStats idCacheStats() {
+	    return providersById.stats();
+	}
+	
+	@Scheduled(fixedDelayString = "${provider.cache.stats-interval-ms:300000}")
+	public void logCacheStats() {
+	    log.debug("Provider cache by email: {}, by id: {}", providersByEmail.stats(), providersById.stats());
+	}
+	
+	private Provider cachedByEmail(String email) {
+	    return providersByEmail.get(email,
+	            key -> mongoLookupTimer("email").record(() -> providerRepository.findByEmail(key).orElse(null)));
+	}
+	
+	// Cache misses only: this is the Mongo latency that authentication actually pays
+	private Timer mongoLookupTimer(String by) {
+	    return meterRegistry.timer("provider.mongo.lookup", "by", by);
+	}
+	
+	private void invalidate(String providerId, String email, Long tokensRevokedUpToMillis) {
+	    evictLocally(providerId, email);
+	    try {
+	        rabbitTemplate.convertAndSend(RabbitConfig.PROVIDER_CACHE_EXCHANGE, "",
+	                new ProviderCacheInvalidation(instanceId, providerId, email, tokensRevokedUpToMillis));
+	        meterRegistry.counter("rabbitmq.published", "exchange", RabbitConfig.PROVIDER_CACHE_EXCHANGE, "routing_key", "").increment();
+	    } catch (AmqpException e) {
+	        // other instances converge once their entries expire
+	        log.warn("Could not broadcast provider cache invalidation: {}", e.getMessage());
+	    }
+	}
+	
+	private void evictLocally(String providerId, String email) {
+	    if (providerId != null) {
+	        providersById.invalidate(providerId);
+	    }
+	    if (email != null) {
+	        providersByEmail.invalidate(email);
+	    }
 	}
 
 }
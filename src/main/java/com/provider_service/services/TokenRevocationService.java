@@ -0,0 +1,44 @@
+package com.provider_service.services;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Local record of providers whose tokens were revoked: every token issued up
+ * to the revocation millisecond is rejected, later ones are accepted again.
+ * A cutoff is forgotten after jwt.expiration, when every token it revoked has
+ * expired anyway.
+ */
+@Service
+public class TokenRevocationService {
+
+    // email -> epoch millisecond up to which tokens are revoked
+    private final Cache<String, Long> revokedUpTo;
+
+    public TokenRevocationService(@Value("${jwt.expiration:86400000}") long jwtExpiration) {
+        this.revokedUpTo = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(jwtExpiration))
+                .build();
+    }
+
+    // Returns the cutoff so it can be replayed on other instances
+    public long revokeTokens(String email) {
+        long cutoff = System.currentTimeMillis();
+        revokeTokensUpTo(email, cutoff);
+        return cutoff;
+    }
+
+    public void revokeTokensUpTo(String email, long epochMilli) {
+        revokedUpTo.asMap().merge(email, epochMilli, Math::max);
+    }
+
+    public boolean isRevoked(String email, long issuedAtMillis) {
+        Long cutoff = revokedUpTo.getIfPresent(email);
+        return cutoff != null && issuedAtMillis <= cutoff;
+    }
+}
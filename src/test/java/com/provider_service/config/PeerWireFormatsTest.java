@@ -0,0 +1,64 @@
+package com.provider_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import com.provider_service.dto.PatientStatusUpdateMessage;
+
+class PeerWireFormatsTest {
+
+    private final PeerWireFormats wireFormats = new PeerWireFormats();
+    private final Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+
+    @Test
+    void exchangesStayJsonUntilThePeerDeclaresSmile() {
+        Message sent = wireFormats.postProcessMessage(statusUpdate(), null, RabbitConfig.PATIENT_EXCHANGE, "patient.status.update");
+
+        assertThat(sent.getMessageProperties().getContentType()).isEqualTo(MessageProperties.CONTENT_TYPE_JSON);
+    }
+
+    @Test
+    void declaredSmileIsUsedForThatExchangeOnlyAndStillDecodes() {
+        wireFormats.recordDeclaration(received(RabbitConfig.PATIENT_EXCHANGE, RabbitConfig.ACCEPTED_CONTENT_TYPES));
+
+        Message sent = wireFormats.postProcessMessage(statusUpdate(), null, RabbitConfig.PATIENT_EXCHANGE, "patient.status.update");
+        Message broadcast = wireFormats.postProcessMessage(statusUpdate(), null, RabbitConfig.PROVIDER_CACHE_EXCHANGE, "");
+
+        assertThat(sent.getMessageProperties().getContentType()).isEqualTo(SmileMessageConverter.CONTENT_TYPE);
+        assertThat(new SmileMessageConverter().fromMessage(sent))
+                .isInstanceOfSatisfying(PatientStatusUpdateMessage.class, update -> assertThat(update.getPatientId()).isEqualTo("p1"));
+        assertThat(broadcast.getMessageProperties().getContentType()).isEqualTo(MessageProperties.CONTENT_TYPE_JSON);
+    }
+
+    @Test
+    void peerThatStopsDeclaringSmileGetsJsonAgain() {
+        wireFormats.recordDeclaration(received(RabbitConfig.PATIENT_EXCHANGE, RabbitConfig.ACCEPTED_CONTENT_TYPES));
+        wireFormats.recordDeclaration(received(RabbitConfig.PATIENT_EXCHANGE, null));
+
+        assertThat(wireFormats.acceptsSmile(RabbitConfig.PATIENT_EXCHANGE)).isFalse();
+    }
+
+    @Test
+    void repliesThroughTheDefaultExchangeDeclareNothing() {
+        wireFormats.recordDeclaration(received("", RabbitConfig.ACCEPTED_CONTENT_TYPES));
+
+        assertThat(wireFormats.acceptsSmile("")).isFalse();
+    }
+
+    private Message statusUpdate() {
+        return json.toMessage(new PatientStatusUpdateMessage("p1", "provider-1", "ACTIVE", "PENDING"), new MessageProperties());
+    }
+
+    private static Message received(String exchange, String accepted) {
+        MessageProperties properties = new MessageProperties();
+        properties.setReceivedExchange(exchange);
+        if (accepted != null) {
+            properties.setHeader(RabbitConfig.ACCEPT_CONTENT_TYPE_HEADER, accepted);
+        }
+        return new Message(new byte[0], properties);
+    }
+}
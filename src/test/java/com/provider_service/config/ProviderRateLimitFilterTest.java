@@ -0,0 +1,116 @@
+package com.provider_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringJUnitConfig(classes = { ProviderRateLimitFilter.class, SimpleMeterRegistry.class })
+@TestPropertySource(properties = {
+        "provider.rate-limit.requests-per-second=5",
+        "provider.rate-limit.burst=3"
+})
+class ProviderRateLimitFilterTest {
+
+    // Buckets live as long as the context, so each test uses its own providers
+
+    @Autowired
+    private ProviderRateLimitFilter filter;
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void burstIsAllowedThenRejectedWithRetryAfter() throws Exception {
+        authenticate("burst@example.com");
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(passes(call("/api/providers/patients"))).isTrue();
+        }
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request("/api/providers/patients"), rejected, chain);
+
+        assertThat(chain.getRequest()).isNull();
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(rejected.getContentAsString()).contains("Too many requests");
+    }
+
+    @Test
+    void bucketRefillsAtTheConfiguredRate() throws Exception {
+        authenticate("refill@example.com");
+        for (int i = 0; i < 3; i++) {
+            call("/api/providers/patients");
+        }
+        assertThat(passes(call("/api/providers/patients"))).isFalse();
+
+        // one token every 200 ms
+        Thread.sleep(250);
+
+        assertThat(passes(call("/api/providers/patients"))).isTrue();
+        assertThat(passes(call("/api/providers/patients"))).isFalse();
+    }
+
+    @Test
+    void eachProviderHasItsOwnBucket() throws Exception {
+        authenticate("busy@example.com");
+        for (int i = 0; i < 3; i++) {
+            call("/api/providers/patients");
+        }
+        assertThat(passes(call("/api/providers/patients"))).isFalse();
+
+        authenticate("quiet@example.com");
+        assertThat(passes(call("/api/providers/patients"))).isTrue();
+    }
+
+    @Test
+    void onlyAuthenticatedProviderRequestsAreLimited() throws Exception {
+        authenticate("auth@example.com");
+        for (int i = 0; i < 5; i++) {
+            assertThat(passes(call("/api/auth/profile"))).isTrue();
+        }
+
+        SecurityContextHolder.clearContext();
+        for (int i = 0; i < 5; i++) {
+            assertThat(passes(call("/api/providers/patients"))).isTrue();
+        }
+    }
+
+    private MockFilterChain call(String path) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request(path), new MockHttpServletResponse(), chain);
+        return chain;
+    }
+
+    // The chain only sees the request when the filter let it through
+    private static boolean passes(MockFilterChain chain) {
+        return chain.getRequest() != null;
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        return request;
+    }
+
+    private static void authenticate(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+}
@@ -0,0 +1,110 @@
+package com.provider_service.controllers;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.provider_service.dto.ProfileCompletionRequest;
+import com.provider_service.models.Provider;
+import com.provider_service.services.ProviderService;
+
+@ExtendWith(MockitoExtension.class)
+class AuthControllerTest {
+
+    @Mock
+    private ProviderService providerService;
+
+    @InjectMocks
+    private AuthController authController;
+
+    private MockMvc mockMvc;
+    private UsernamePasswordAuthenticationToken authentication;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(authController).build();
+        Provider provider = new Provider("provider@example.com", "hash");
+        provider.setId("provider-1");
+        provider.setProfileVersion(4);
+        authentication = new UsernamePasswordAuthenticationToken(provider, null, provider.getAuthorities());
+    }
+
+    @Test
+    void profileCarriesItsVersionAsETag() throws Exception {
+        mockMvc.perform(get("/api/auth/profile").principal(authentication))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    void patchWithAStaleVersionIsAPreconditionFailure() throws Exception {
+        when(providerService.patchProviderProfile(eq("provider-1"), any(ProfileCompletionRequest.class), eq(3L)))
+                .thenThrow(new OptimisticLockingFailureException("modified since version 3"));
+
+        mockMvc.perform(patchProfile().header(HttpHeaders.IF_MATCH, "W/\"3\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void patchWithTheCurrentVersionReturnsTheNewETag() throws Exception {
+        Provider updated = new Provider("provider@example.com", "hash");
+        updated.setId("provider-1");
+        updated.setFullName("Dr. Patched");
+        updated.setProfileVersion(5);
+        when(providerService.patchProviderProfile(eq("provider-1"), any(ProfileCompletionRequest.class), eq(4L)))
+                .thenReturn(updated);
+
+        mockMvc.perform(patchProfile().header(HttpHeaders.IF_MATCH, "\"4\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""));
+    }
+
+    @Test
+    void patchWithoutIfMatchIsUnconditional() throws Exception {
+        Provider updated = new Provider("provider@example.com", "hash");
+        updated.setProfileVersion(5);
+        when(providerService.patchProviderProfile(eq("provider-1"), any(ProfileCompletionRequest.class), isNull()))
+                .thenReturn(updated);
+
+        mockMvc.perform(patchProfile())
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void malformedIfMatchIsABadRequestWithAMessage() throws Exception {
+        mockMvc.perform(patchProfile().header(HttpHeaders.IF_MATCH, "\"abc\""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(containsString("If-Match")));
+
+        verifyNoInteractions(providerService);
+    }
+
+    private MockHttpServletRequestBuilder patchProfile() {
+        return patch("/api/auth/profile")
+                .principal(authentication)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"fullName\":\"Dr. Patched\"}");
+    }
+}
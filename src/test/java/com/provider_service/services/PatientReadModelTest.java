@@ -0,0 +1,111 @@
+package com.provider_service.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.provider_service.dto.PatientDTO;
+import com.provider_service.dto.PatientStatusUpdateMessage;
+
+class PatientReadModelTest {
+
+    private static final List<PatientDTO> PANEL = List.of(
+            PatientDTO.builder().id("p1").accountStatus("ACTIVE").build(),
+            PatientDTO.builder().id("p2").accountStatus("PENDING").build(),
+            PatientDTO.builder().id("p3").accountStatus("pending").build());
+
+    private final PatientReadModel readModel = new PatientReadModel(100, 60_000, 3000);
+
+    @Test
+    void loadedPanelIsIndexedByStatusAndId() {
+        assertThat(readModel.load("provider-1", PANEL, readModel.syncToken())).isTrue();
+
+        assertThat(readModel.findPatients("provider-1", "ALL")).hasValue(PANEL);
+        assertThat(readModel.findPatients("provider-1", "Pending")).hasValueSatisfying(
+                pending -> assertThat(pending).extracting(PatientDTO::getId).containsExactly("p2", "p3"));
+        assertThat(readModel.findPatients("provider-1", "INACTIVE")).hasValue(List.of());
+        assertThat(readModel.findPatient("provider-1", "p1")).hasValueSatisfying(
+                patient -> assertThat(patient.getAccountStatus()).isEqualTo("ACTIVE"));
+        assertThat(readModel.findPatient("provider-1", "unknown")).isEmpty();
+    }
+
+    @Test
+    void statusChangePatchesTheCachedPanel() {
+        readModel.load("provider-1", PANEL, readModel.syncToken());
+
+        readModel.applyStatusChange(new PatientStatusUpdateMessage("p2", "provider-1", "ACTIVE", "PENDING"));
+
+        assertThat(readModel.findPatients("provider-1", "ACTIVE")).hasValueSatisfying(
+                active -> assertThat(active).extracting(PatientDTO::getId).containsExactly("p1", "p2"));
+        assertThat(readModel.findPatient("provider-1", "p2")).hasValueSatisfying(
+                patient -> assertThat(patient.getAccountStatus()).isEqualTo("ACTIVE"));
+    }
+
+    @Test
+    void syncSentBeforeAChangeIsNotCached() {
+        long syncToken = readModel.syncToken();
+        readModel.applyStatusChange(new PatientStatusUpdateMessage("p1", "provider-1", "INACTIVE", "ACTIVE"));
+
+        assertThat(readModel.load("provider-1", PANEL, syncToken)).isFalse();
+        assertThat(readModel.findPatients("provider-1", "ALL")).isEmpty();
+    }
+
+    @Test
+    void lateSyncDoesNotOverwriteANewerChange() {
+        long staleToken = readModel.syncToken();
+        readModel.load("provider-1", PANEL, readModel.syncToken());
+        readModel.applyStatusChange(new PatientStatusUpdateMessage("p1", "provider-1", "INACTIVE", "ACTIVE"));
+
+        assertThat(readModel.load("provider-1", PANEL, staleToken)).isFalse();
+        assertThat(readModel.findPatient("provider-1", "p1")).hasValueSatisfying(
+                patient -> assertThat(patient.getAccountStatus()).isEqualTo("INACTIVE"));
+    }
+
+    @Test
+    void syncSentAfterTheChangeIsCached() {
+        readModel.applyStatusChange(new PatientStatusUpdateMessage("p1", "provider-1", "INACTIVE", "ACTIVE"));
+
+        assertThat(readModel.load("provider-1", PANEL, readModel.syncToken())).isTrue();
+        assertThat(readModel.findPatients("provider-1", "ALL")).hasValue(PANEL);
+    }
+
+    @Test
+    void changesOfOtherProvidersDoNotDropASync() {
+        long syncToken = readModel.syncToken();
+        readModel.applyStatusChange(new PatientStatusUpdateMessage("p9", "provider-2", "INACTIVE", "ACTIVE"));
+
+        assertThat(readModel.load("provider-1", PANEL, syncToken)).isTrue();
+    }
+
+    @Test
+    void evictDropsThePanelAndSyncsAlreadyInFlight() {
+        readModel.load("provider-1", PANEL, readModel.syncToken());
+        long inFlight = readModel.syncToken();
+
+        readModel.evict("provider-1");
+
+        assertThat(readModel.findPatients("provider-1", "ALL")).isEmpty();
+        assertThat(readModel.load("provider-1", PANEL, inFlight)).isFalse();
+        assertThat(readModel.load("provider-1", PANEL, readModel.syncToken())).isTrue();
+    }
+
+    @Test
+    void changeForAnUnknownPatientDropsThePanel() {
+        readModel.load("provider-1", PANEL, readModel.syncToken());
+
+        readModel.applyStatusChange(new PatientStatusUpdateMessage("p9", "provider-1", "ACTIVE", "PENDING"));
+
+        assertThat(readModel.findPatients("provider-1", "ALL")).isEmpty();
+    }
+
+    @Test
+    void panelOlderThanTheTtlIsAMiss() {
+        PatientReadModel expiring = new PatientReadModel(100, -1, 3000);
+        expiring.load("provider-1", PANEL, expiring.syncToken());
+
+        assertThat(expiring.findPatients("provider-1", "ALL")).isEmpty();
+        assertThat(expiring.findPatient("provider-1", "p1")).isEmpty();
+    }
+}
@@ -0,0 +1,121 @@
+package com.provider_service.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import com.provider_service.exceptions.ServiceBusyException;
+import com.provider_service.services.PatientServiceCircuitBreaker.State;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringJUnitConfig(classes = { PatientServiceCircuitBreaker.class, SimpleMeterRegistry.class })
+@TestPropertySource(properties = {
+        "patient.sync.timeout-ms=1000",
+        "patient.sync.min-timeout-ms=100",
+        "patient.breaker.window=10",
+        "patient.breaker.minimum-calls=4",
+        "patient.breaker.failure-rate-threshold=0.5",
+        "patient.breaker.open-ms=200"
+})
+// every test starts from a closed breaker
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class PatientServiceCircuitBreakerTest {
+
+    @Autowired
+    private PatientServiceCircuitBreaker breaker;
+
+    @Test
+    void staysClosedUntilTheMinimumNumberOfCalls() {
+        fail(3);
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.acquire("panel").timeoutMillis()).isEqualTo(1000);
+    }
+
+    @Test
+    void opensOnTheFailureRateAndRejectsCalls() {
+        succeed(2);
+        fail(2);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThatThrownBy(() -> breaker.acquire("panel"))
+                .isInstanceOfSatisfying(ServiceBusyException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(1));
+    }
+
+    @Test
+    void letsASingleProbeThroughOnceTheOpenPeriodIsOver() throws Exception {
+        fail(4);
+        Thread.sleep(250);
+
+        PatientServiceCircuitBreaker.Permit probe = breaker.acquire("lookup");
+
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(probe.timeoutMillis()).isEqualTo(1000);
+        assertThatThrownBy(() -> breaker.acquire("lookup")).isInstanceOf(ServiceBusyException.class);
+    }
+
+    @Test
+    void successfulProbeClosesTheBreaker() throws Exception {
+        fail(4);
+        Thread.sleep(250);
+
+        breaker.acquire("lookup").complete(null);
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.acquire("lookup").timeoutMillis()).isEqualTo(1000);
+    }
+
+    @Test
+    void failedProbeReopensTheBreaker() throws Exception {
+        fail(4);
+        Thread.sleep(250);
+
+        breaker.acquire("lookup").complete(new TimeoutException());
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThatThrownBy(() -> breaker.acquire("lookup")).isInstanceOf(ServiceBusyException.class);
+    }
+
+    @Test
+    void lateResultOfACallSentBeforeOpeningDoesNotCloseIt() {
+        PatientServiceCircuitBreaker.Permit sentWhileClosed = breaker.acquire("panel");
+        fail(4);
+
+        sentWhileClosed.complete(null);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void timeoutsAreLearnedPerRequestType() {
+        // fast lookups bring the lookup timeout down to the floor
+        for (int i = 0; i < 32; i++) {
+            breaker.acquire("lookup").complete(null);
+        }
+
+        assertThat(breaker.getTimeoutMillis("lookup")).isEqualTo(100);
+        assertThat(breaker.getTimeoutMillis("panel")).isEqualTo(1000);
+        assertThat(breaker.acquire("panel").timeoutMillis()).isEqualTo(1000);
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.acquire("panel").complete(null);
+        }
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.acquire("panel").complete(new TimeoutException());
+        }
+    }
+}
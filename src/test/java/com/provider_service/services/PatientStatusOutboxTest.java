@@ -0,0 +1,244 @@
+package com.provider_service.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.provider_service.dto.PatientStatusUpdateMessage;
+import com.provider_service.models.OutboxMessage;
+import com.provider_service.repository.OutboxMessageRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataMongoTest
+@Import({ PatientStatusOutbox.class, SimpleMeterRegistry.class })
+@TestPropertySource(properties = {
+        "patient.outbox.confirm-timeout-ms=200",
+        "patient.outbox.max-rejections=3",
+        "patient.outbox.retry-backoff-ms=1000",
+        "patient.outbox.max-retry-backoff-ms=4000"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class PatientStatusOutboxTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    private static final CorrelationData.Confirm ACK = new CorrelationData.Confirm(true, null);
+    private static final CorrelationData.Confirm NACK = new CorrelationData.Confirm(false, "queue full");
+
+    @Autowired
+    private PatientStatusOutbox outbox;
+
+    @Autowired
+    private OutboxMessageRepository outboxRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @MockitoBean
+    private RabbitTemplate rabbitTemplate;
+
+    @MockitoBean
+    private PatientReadModel patientReadModel;
+
+    // payloads in the order they reached the broker
+    private final List<PatientStatusUpdateMessage> published = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void clearOutbox() {
+        mongoTemplate.remove(new Query(), OutboxMessage.class);
+    }
+
+    @Test
+    void dueUpdatesArePublishedInOrderAndMarkedSent() {
+        broker(message -> ACK);
+        PatientStatusUpdateMessage first = update("patient-1", "ACTIVE");
+        PatientStatusUpdateMessage second = update("patient-2", "ACTIVE");
+        outbox.enqueue(first);
+        outbox.enqueueAll(List.of(second, update("patient-3", "INACTIVE")));
+
+        outbox.relay();
+
+        assertThat(published).extracting(PatientStatusUpdateMessage::getPatientId)
+                .containsExactly("patient-1", "patient-2", "patient-3");
+        assertThat(outboxRepository.findAll()).extracting(OutboxMessage::getStatus).containsOnly(OutboxMessage.SENT);
+        assertThat(outbox.find(first.getUpdateId(), "provider-1"))
+                .hasValueSatisfying(status -> assertThat(status.getStatus()).isEqualTo("CONFIRMED"));
+    }
+
+    @Test
+    void claimedUpdateIsNotRelayedAgainUntilItsLeaseExpires() {
+        broker(message -> ACK);
+        PatientStatusUpdateMessage message = update("patient-1", "ACTIVE");
+        outbox.enqueue(message);
+        // claimed by another instance that is still waiting for the confirm
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(message.getUpdateId())),
+                new Update().set("status", OutboxMessage.IN_FLIGHT).set("claimId", "other-instance")
+                        .set("availableAt", Instant.now().plusSeconds(60)),
+                OutboxMessage.class);
+
+        outbox.relay();
+        assertThat(published).isEmpty();
+
+        makeDue();
+        outbox.relay();
+        assertThat(published).extracting(PatientStatusUpdateMessage::getUpdateId).containsExactly(message.getUpdateId());
+        assertThat(entry(message).getStatus()).isEqualTo(OutboxMessage.SENT);
+    }
+
+    @Test
+    void laterUpdateOfAPatientWaitsUntilTheEarlierOneIsSent() {
+        PatientStatusUpdateMessage activate = update("patient-1", "ACTIVE");
+        PatientStatusUpdateMessage deactivate = update("patient-1", "INACTIVE");
+        outbox.enqueue(activate);
+        outbox.enqueue(deactivate);
+        // the activation is nacked once
+        AtomicBoolean nacked = new AtomicBoolean();
+        broker(message -> message.getUpdateId().equals(activate.getUpdateId()) && nacked.compareAndSet(false, true)
+                ? NACK : ACK);
+
+        outbox.relay();
+        assertThat(published).extracting(PatientStatusUpdateMessage::getNewStatus).containsExactly("ACTIVE");
+        assertThat(entry(deactivate).getStatus()).isEqualTo(OutboxMessage.PENDING);
+
+        makeDue();
+        outbox.relay();
+        makeDue();
+        outbox.relay();
+
+        assertThat(published).extracting(PatientStatusUpdateMessage::getNewStatus)
+                .containsExactly("ACTIVE", "ACTIVE", "INACTIVE");
+        assertThat(entry(activate).getStatus()).isEqualTo(OutboxMessage.SENT);
+        assertThat(entry(deactivate).getStatus()).isEqualTo(OutboxMessage.SENT);
+    }
+
+    @Test
+    void nackedUpdateFailsAfterMaxRejectionsAndDropsTheCachedPanel() {
+        broker(message -> NACK);
+        PatientStatusUpdateMessage message = update("patient-1", "ACTIVE");
+        outbox.enqueue(message);
+
+        outbox.relay();
+        assertThat(entry(message).getStatus()).isEqualTo(OutboxMessage.PENDING);
+        assertThat(entry(message).getRejections()).isEqualTo(1);
+        verify(patientReadModel, never()).evict(anyString());
+
+        for (int i = 0; i < 2; i++) {
+            makeDue();
+            outbox.relay();
+        }
+
+        OutboxMessage failed = entry(message);
+        assertThat(failed.getStatus()).isEqualTo(OutboxMessage.FAILED);
+        assertThat(failed.getRejections()).isEqualTo(3);
+        assertThat(failed.getLastError()).contains("Nacked");
+        verify(patientReadModel).evict("provider-1");
+    }
+
+    @Test
+    void unreachableBrokerNeverFailsAnUpdateAndBacksOffExponentially() {
+        when(rabbitTemplate.invoke(any())).thenThrow(new AmqpConnectException(new ConnectException("Connection refused")));
+        PatientStatusUpdateMessage message = update("patient-1", "ACTIVE");
+        outbox.enqueue(message);
+
+        long[] expectedBackoffs = { 1000, 2000, 4000, 4000, 4000, 4000, 4000, 4000, 4000, 4000 };
+        for (long expected : expectedBackoffs) {
+            Instant before = Instant.now();
+            outbox.relay();
+            OutboxMessage retried = entry(message);
+            assertThat(retried.getStatus()).isEqualTo(OutboxMessage.PENDING);
+            assertThat(Duration.between(before, retried.getAvailableAt()).toMillis())
+                    .isBetween(expected, expected + 1000);
+            makeDue();
+        }
+
+        OutboxMessage pending = entry(message);
+        assertThat(pending.getAttempts()).isEqualTo(expectedBackoffs.length);
+        assertThat(pending.getRejections()).isZero();
+        verify(patientReadModel, never()).evict(anyString());
+    }
+
+    @Test
+    void missingConfirmIsRetriedWithoutCountingAsARejection() {
+        // published, but the confirm never arrives
+        broker(message -> null);
+        PatientStatusUpdateMessage message = update("patient-1", "ACTIVE");
+        outbox.enqueue(message);
+
+        outbox.relay();
+
+        OutboxMessage retried = entry(message);
+        assertThat(retried.getStatus()).isEqualTo(OutboxMessage.PENDING);
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(retried.getRejections()).isZero();
+        assertThat(retried.getLastError()).contains("No publisher confirm");
+    }
+
+    // Answers every publish with the confirm chosen for its payload; null leaves it unconfirmed
+    private void broker(Function<PatientStatusUpdateMessage, CorrelationData.Confirm> confirms) {
+        RabbitOperations operations = mock(RabbitOperations.class);
+        doAnswer(invocation -> {
+            PatientStatusUpdateMessage message = invocation.getArgument(2);
+            CorrelationData correlationData = invocation.getArgument(3);
+            CorrelationData.Confirm confirm = confirms.apply(message);
+            published.add(message);
+            if (confirm != null) {
+                correlationData.getFuture().complete(confirm);
+            }
+            return null;
+        }).when(operations).convertAndSend(anyString(), anyString(), any(Object.class), any(CorrelationData.class));
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(operations));
+    }
+
+    // Stands in for time passing: retries and leases become due
+    private void makeDue() {
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("status").in(OutboxMessage.PENDING, OutboxMessage.IN_FLIGHT)),
+                new Update().set("availableAt", Instant.now().minusMillis(1)),
+                OutboxMessage.class);
+    }
+
+    private OutboxMessage entry(PatientStatusUpdateMessage message) {
+        return outboxRepository.findById(message.getUpdateId()).orElseThrow();
+    }
+
+    private static PatientStatusUpdateMessage update(String patientId, String newStatus) {
+        return new PatientStatusUpdateMessage(patientId, "provider-1", newStatus, "PENDING");
+    }
+}
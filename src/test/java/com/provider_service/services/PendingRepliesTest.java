@@ -0,0 +1,79 @@
+package com.provider_service.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+class PendingRepliesTest {
+
+    private final PendingReplies<String> replies = new PendingReplies<>();
+
+    @Test
+    void completesOnlyTheMatchingRequest() throws Exception {
+        CompletableFuture<String> first = replies.register("req-1", 60_000);
+        CompletableFuture<String> second = replies.register("req-2", 60_000);
+
+        assertThat(replies.complete("req-2", "panel-2")).isTrue();
+
+        assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo("panel-2");
+        assertThat(first).isNotDone();
+        assertThat(replies.size()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsRepliesForUnknownOrAlreadyCompletedRequests() {
+        replies.register("req-1", 60_000);
+
+        assertThat(replies.complete("other", "panel")).isFalse();
+        assertThat(replies.complete("req-1", "panel")).isTrue();
+        assertThat(replies.complete("req-1", "late duplicate")).isFalse();
+    }
+
+    @Test
+    void timesOutAndForgetsTheRequest() {
+        CompletableFuture<String> reply = replies.register("req-1", 20);
+
+        assertThat(reply).failsWithin(2, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(TimeoutException.class);
+        assertThat(replies.size()).isZero();
+        assertThat(replies.complete("req-1", "too late")).isFalse();
+    }
+
+    @Test
+    void failPropagatesTheErrorToTheWaiter() {
+        CompletableFuture<String> reply = replies.register("req-1", 60_000);
+
+        replies.fail("req-1", new IllegalStateException("broker down"));
+
+        assertThat(reply).failsWithin(1, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(IllegalStateException.class);
+        assertThat(replies.size()).isZero();
+    }
+
+    @Test
+    void purgeLeavesLiveRequestsAlone() {
+        CompletableFuture<String> reply = replies.register("req-1", 60_000);
+
+        assertThat(replies.purgeExpired()).isZero();
+        assertThat(reply).isNotDone();
+        assertThat(replies.size()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredRequestsNeverStayBehind() {
+        // deadline already passed: the timer or the purge, whichever runs first, fails the waiter
+        CompletableFuture<String> reply = replies.register("req-1", -1);
+
+        replies.purgeExpired();
+
+        assertThat(reply).isCompletedExceptionally();
+        assertThat(replies.size()).isZero();
+    }
+}
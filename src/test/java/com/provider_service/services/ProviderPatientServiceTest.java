@@ -0,0 +1,194 @@
+package com.provider_service.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import com.provider_service.config.RabbitConfig;
+import com.provider_service.dto.BulkStatusUpdateRequest;
+import com.provider_service.dto.PatientDTO;
+import com.provider_service.dto.PatientPageDTO;
+import com.provider_service.dto.PatientSyncRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringJUnitConfig(classes = {
+        ProviderPatientService.class,
+        PatientReadModel.class,
+        PatientServiceCircuitBreaker.class,
+        SimpleMeterRegistry.class,
+        ProviderPatientServiceTest.ReplyQueues.class
+})
+@TestPropertySource(properties = "patient.sync.timeout-ms=200")
+class ProviderPatientServiceTest {
+
+    // The context is shared by all tests, so each test uses its own provider id
+    private static final List<PatientDTO> PANEL = List.of(
+            PatientDTO.builder().id("p1").accountStatus("ACTIVE").build(),
+            PatientDTO.builder().id("p2").accountStatus("PENDING").build());
+
+    @Autowired
+    private ProviderPatientService service;
+
+    @Autowired
+    private PatientReadModel readModel;
+
+    @MockitoBean
+    private RabbitTemplate rabbitTemplate;
+
+    @MockitoBean
+    private PatientStatusOutbox patientStatusOutbox;
+
+    @Test
+    void uncorrelatedPanelReplyIsNeverHandedToAWaiter() {
+        CompletableFuture<List<PatientDTO>> patients = service.getPatientsAsync("provider-1", "ALL");
+
+        service.handlePatientResponse(PANEL, null);
+
+        assertThat(patients).isNotDone();
+        assertThat(readModel.findPatients("provider-1", "ALL")).isEmpty();
+    }
+
+    @Test
+    void correlatedPanelReplyCompletesTheRequestAndWarmsTheReadModel() throws Exception {
+        CompletableFuture<List<PatientDTO>> patients = service.getPatientsAsync("provider-2", "ACTIVE");
+
+        service.handlePatientResponse(PANEL, sentSyncRequests().get(0).getRequestId());
+
+        assertThat(patients.get(1, TimeUnit.SECONDS)).extracting(PatientDTO::getId).containsExactly("p1");
+        assertThat(readModel.findPatients("provider-2", "ALL")).hasValueSatisfying(all -> assertThat(all).hasSize(2));
+    }
+
+    @Test
+    void concurrentMissesForOneProviderShareASingleSync() throws Exception {
+        CompletableFuture<List<PatientDTO>> all = service.getPatientsAsync("provider-6", "ALL");
+        CompletableFuture<List<PatientDTO>> active = service.getPatientsAsync("provider-6", "ACTIVE");
+        CompletableFuture<List<PatientDTO>> pending = service.getPatientsAsync("provider-6", "PENDING");
+
+        List<PatientSyncRequest> sent = sentSyncRequests();
+        assertThat(sent).hasSize(1);
+        service.handlePatientResponse(PANEL, sent.get(0).getRequestId());
+
+        assertThat(all.get(1, TimeUnit.SECONDS)).hasSize(2);
+        assertThat(active.get(1, TimeUnit.SECONDS)).extracting(PatientDTO::getId).containsExactly("p1");
+        assertThat(pending.get(1, TimeUnit.SECONDS)).extracting(PatientDTO::getId).containsExactly("p2");
+    }
+
+    @Test
+    void syncAfterACompletedOneIsSentAgain() throws Exception {
+        CompletableFuture<List<PatientDTO>> first = service.getPatientsAsync("provider-7", "ALL");
+        service.handlePatientResponse(PANEL, sentSyncRequests().get(0).getRequestId());
+        first.get(1, TimeUnit.SECONDS);
+        readModel.evict("provider-7");
+
+        service.getPatientsAsync("provider-7", "ALL");
+
+        assertThat(sentSyncRequests()).hasSize(2);
+    }
+
+    @Test
+    void unansweredPanelSyncFailsInsteadOfReturningAnEmptyList() {
+        CompletableFuture<List<PatientDTO>> patients = service.getPatientsAsync("provider-3", "ALL");
+
+        assertThat(patients).failsWithin(2, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void unansweredLookupFailsInsteadOfReportingAMissingPatient() {
+        CompletableFuture<Optional<PatientDTO>> patient = service.getPatientAsync("provider-4", "p1");
+
+        assertThat(patient).failsWithin(2, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void unansweredPageRequestFailsInsteadOfReturningAnEmptyPage() {
+        CompletableFuture<PatientPageDTO> page = service.getPatientPageAsync("provider-5", "ALL", 0, 50, "lastName", null);
+
+        assertThat(page).failsWithin(2, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void bulkUpdateWithoutPatientIdsIsRejected() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> service.bulkUpdateStatus(null, "provider-8", "ACTIVATE", "reason"))
+                .withMessage("patientIds is required");
+        verifyNoInteractions(patientStatusOutbox);
+    }
+
+    @Test
+    void bulkUpdateWithAnEmptyListIsRejected() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> service.bulkUpdateStatus(List.of(), "provider-8", "ACTIVATE", "reason"))
+                .withMessage("patientIds is required");
+        verifyNoInteractions(patientStatusOutbox);
+    }
+
+    @Test
+    void bulkUpdateOfMoreThanTheMaximumIsRejected() {
+        List<String> patientIds = IntStream.rangeClosed(0, BulkStatusUpdateRequest.MAX_PATIENTS)
+                .mapToObj(i -> "patient-" + i)
+                .toList();
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> service.bulkUpdateStatus(patientIds, "provider-8", "ACTIVATE", "reason"))
+                .withMessage("At most 1000 patients per request");
+        verifyNoInteractions(patientStatusOutbox);
+    }
+
+    private List<PatientSyncRequest> sentSyncRequests() {
+        ArgumentCaptor<PatientSyncRequest> requests = ArgumentCaptor.forClass(PatientSyncRequest.class);
+        verify(rabbitTemplate, atLeastOnce()).convertAndSend(eq(RabbitConfig.PATIENT_EXCHANGE),
+                eq(RabbitConfig.PATIENT_SYNC_ROUTING_KEY), requests.capture(), any(MessagePostProcessor.class));
+        return requests.getAllValues();
+    }
+
+    // Stand-ins for the per-instance reply queues declared by RabbitConfig
+    @Configuration
+    static class ReplyQueues {
+
+        @Bean
+        Queue patientSyncReplyQueue() {
+            return new Queue("test.patient.sync.reply");
+        }
+
+        @Bean
+        Queue patientSyncPageReplyQueue() {
+            return new Queue("test.patient.sync.page.reply");
+        }
+
+        @Bean
+        Queue patientLookupReplyQueue() {
+            return new Queue("test.patient.lookup.reply");
+        }
+    }
+}
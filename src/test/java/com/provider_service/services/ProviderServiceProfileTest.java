@@ -0,0 +1,119 @@
+package com.provider_service.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.provider_service.dto.ProfileCompletionRequest;
+import com.provider_service.models.Provider;
+import com.provider_service.repository.ProviderRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataMongoTest
+@Import({ ProviderService.class, SimpleMeterRegistry.class })
+@Testcontainers(disabledWithoutDocker = true)
+class ProviderServiceProfileTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private ProviderService providerService;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockitoBean
+    private RabbitTemplate rabbitTemplate;
+
+    @MockitoBean
+    private TokenRevocationService tokenRevocationService;
+
+    @Test
+    void updateWithTheCurrentVersionAppliesAndBumpsIt() {
+        Provider provider = providerRepository.save(new Provider("current@example.com", "hash"));
+
+        Provider updated = providerService.patchProviderProfile(provider.getId(), request("Dr. Current", null), 0L);
+        Provider again = providerService.patchProviderProfile(provider.getId(), request(null, "Cardiology"), 1L);
+
+        assertThat(updated.getProfileVersion()).isEqualTo(1);
+        assertThat(again.getProfileVersion()).isEqualTo(2);
+        assertThat(again.getFullName()).isEqualTo("Dr. Current");
+        assertThat(again.getSpecialty()).isEqualTo("Cardiology");
+    }
+
+    @Test
+    void updateWithAStaleVersionIsRejectedAndNotWritten() {
+        Provider provider = providerRepository.save(new Provider("stale@example.com", "hash"));
+        providerService.patchProviderProfile(provider.getId(), request("Dr. First", null), 0L);
+
+        // a second client still holding version 0
+        assertThatThrownBy(() -> providerService.patchProviderProfile(provider.getId(), request("Dr. Second", null), 0L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThatThrownBy(() -> providerService.completeProviderProfile(provider.getId(), request("Dr. Second", null), 0L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        Provider stored = providerRepository.findById(provider.getId()).orElseThrow();
+        assertThat(stored.getFullName()).isEqualTo("Dr. First");
+        assertThat(stored.getProfileVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void updateOfAnUnknownProviderIsNotReportedAsAConflict() {
+        assertThatThrownBy(() -> providerService.patchProviderProfile("000000000000000000000000", request("Dr. Nobody", null), 3L))
+                .isNotInstanceOf(OptimisticLockingFailureException.class)
+                .hasMessageContaining("Provider not found");
+    }
+
+    @Test
+    void stateLicensesAreStoredUppercase() {
+        Provider provider = providerRepository.save(new Provider("licenses@example.com", "hash"));
+        ProfileCompletionRequest request = new ProfileCompletionRequest();
+        request.setStateLicenses(List.of("ca", " Ny "));
+
+        providerService.patchProviderProfile(provider.getId(), request, null);
+
+        assertThat(providerRepository.findById(provider.getId()).orElseThrow().getStateLicenses())
+                .containsExactly("CA", "NY");
+    }
+
+    @Test
+    void passwordRehashDoesNotOverwriteAConcurrentProfileUpdate() {
+        Provider loggedIn = providerRepository.save(new Provider("rehash@example.com", "old-hash"));
+        // the profile changes between the login's read and the rehash
+        providerService.patchProviderProfile(loggedIn.getId(), request("Dr. Rehash", null), 0L);
+
+        providerService.updatePassword(loggedIn, "new-hash");
+
+        Provider stored = providerRepository.findById(loggedIn.getId()).orElseThrow();
+        assertThat(stored.getPassword()).isEqualTo("new-hash");
+        assertThat(stored.getFullName()).isEqualTo("Dr. Rehash");
+        assertThat(stored.getProfileVersion()).isEqualTo(1);
+    }
+
+    private static ProfileCompletionRequest request(String fullName, String specialty) {
+        ProfileCompletionRequest request = new ProfileCompletionRequest();
+        request.setFullName(fullName);
+        request.setSpecialty(specialty);
+        return request;
+    }
+}